@@ -0,0 +1,32 @@
+package com.edu.bcu.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 电影变更通知（movie_change_log）
+ * 电影服务各实例定时读取该表失效电影缓存和列表 ETag，电影分类关联变化后需写入一条
+ */
+@Slf4j
+@Repository
+public class MovieChangeLogRepository {
+    private static final String INSERT_SQL = "INSERT INTO movie_change_log (movie_id, change_time) VALUES (?, NOW())";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieChangeLogRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 在调用方事务中写入，与关联修改一起提交；写入失败时电影服务依赖缓存过期，不影响本次修改
+     */
+    public void record(Integer movieId) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, movieId);
+        } catch (Exception e) {
+            log.warn("写入电影变更通知失败：movieId={}, error={}", movieId, e.getMessage());
+        }
+    }
+}
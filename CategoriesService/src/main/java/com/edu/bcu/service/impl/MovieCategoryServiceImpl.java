@@ -7,6 +7,7 @@ import com.edu.bcu.exception.BusinessException;
 import com.edu.bcu.exception.ErrorCode;
 import com.edu.bcu.repository.CategoryRepository;
 import com.edu.bcu.repository.MovieCategoryRepository;
+import com.edu.bcu.repository.MovieChangeLogRepository;
 import com.edu.bcu.service.MovieCategoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -23,11 +24,14 @@ public class MovieCategoryServiceImpl implements MovieCategoryService {
     
     private final MovieCategoryRepository movieCategoryRepository;
     private final CategoryRepository categoryRepository;
+    private final MovieChangeLogRepository changeLogRepository;
 
     public MovieCategoryServiceImpl(MovieCategoryRepository movieCategoryRepository, 
-                                   CategoryRepository categoryRepository) {
+                                   CategoryRepository categoryRepository,
+                                   MovieChangeLogRepository changeLogRepository) {
         this.movieCategoryRepository = movieCategoryRepository;
         this.categoryRepository = categoryRepository;
+        this.changeLogRepository = changeLogRepository;
     }
 
     @Override
@@ -48,7 +52,9 @@ public class MovieCategoryServiceImpl implements MovieCategoryService {
         movieCategory.setCategoryId(dto.getCategoryId());
         movieCategory.setCreateTime(LocalDateTime.now());
         
-        return movieCategoryRepository.save(movieCategory);
+        MovieCategory saved = movieCategoryRepository.save(movieCategory);
+        changeLogRepository.record(dto.getMovieId());
+        return saved;
     }
 
     @Override
@@ -58,6 +64,14 @@ public class MovieCategoryServiceImpl implements MovieCategoryService {
             throw new BusinessException(ErrorCode.PARAMS_ERROR.getCode(), "分类ID列表不能为空");
         }
         
+        List<MovieCategory> saved = insertMovieCategories(movieId, categoryIds);
+        if (!saved.isEmpty()) {
+            changeLogRepository.record(movieId);
+        }
+        return saved;
+    }
+
+    private List<MovieCategory> insertMovieCategories(Integer movieId, List<Integer> categoryIds) {
         // 验证所有分类是否存在
         for (Integer categoryId : categoryIds) {
             if (!categoryRepository.existsById(categoryId)) {
@@ -95,6 +109,7 @@ public class MovieCategoryServiceImpl implements MovieCategoryService {
         }
         
         movieCategoryRepository.deleteByMovieIdAndCategoryId(movieId, categoryId);
+        changeLogRepository.record(movieId);
     }
 
     @Override
@@ -105,12 +120,14 @@ public class MovieCategoryServiceImpl implements MovieCategoryService {
         }
         
         movieCategoryRepository.deleteByMovieIdAndCategoryIdIn(movieId, categoryIds);
+        changeLogRepository.record(movieId);
     }
 
     @Override
     @Transactional
     public void removeAllMovieCategories(Integer movieId) {
         movieCategoryRepository.deleteByMovieId(movieId);
+        changeLogRepository.record(movieId);
     }
 
     @Override
@@ -118,10 +135,11 @@ public class MovieCategoryServiceImpl implements MovieCategoryService {
     public List<MovieCategory> updateMovieCategories(Integer movieId, List<Integer> categoryIds) {
         // 先删除所有现有关联
         movieCategoryRepository.deleteByMovieId(movieId);
+        changeLogRepository.record(movieId);
         
         // 添加新的关联
         if (categoryIds != null && !categoryIds.isEmpty()) {
-            return addMovieCategoriesBatch(movieId, categoryIds);
+            return insertMovieCategories(movieId, categoryIds);
         }
         
         return new ArrayList<>();
@@ -33,6 +33,7 @@ public class UrlUpdateServiceImpl implements UrlUpdateService {
         try {
             String sql = "UPDATE movie SET poster_url = ?, update_time = NOW() WHERE id = ?";
             int rows = jdbcTemplate.update(sql, posterUrl, movieId);
+            notifyMovieChanged(movieId, rows);
             log.info("更新电影海报URL成功：movieId={}, posterUrl={}", movieId, posterUrl);
             return rows > 0;
         } catch (Exception e) {
@@ -46,6 +47,7 @@ public class UrlUpdateServiceImpl implements UrlUpdateService {
         try {
             String sql = "UPDATE movie SET play_url = ?, update_time = NOW() WHERE id = ?";
             int rows = jdbcTemplate.update(sql, playUrl, movieId);
+            notifyMovieChanged(movieId, rows);
             log.info("更新电影播放URL成功：movieId={}, playUrl={}", movieId, playUrl);
             return rows > 0;
         } catch (Exception e) {
@@ -59,6 +61,7 @@ public class UrlUpdateServiceImpl implements UrlUpdateService {
         try {
             String sql = "UPDATE movie SET trailer_url = ?, update_time = NOW() WHERE id = ?";
             int rows = jdbcTemplate.update(sql, trailerUrl, movieId);
+            notifyMovieChanged(movieId, rows);
             log.info("更新电影预告片URL成功：movieId={}, trailerUrl={}", movieId, trailerUrl);
             return rows > 0;
         } catch (Exception e) {
@@ -105,4 +108,18 @@ public class UrlUpdateServiceImpl implements UrlUpdateService {
             return false;
         }
     }
+    
+    /**
+     * 写入电影变更通知，电影服务据此失效各实例的电影缓存
+     */
+    private void notifyMovieChanged(Long movieId, int rows) {
+        if (rows == 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO movie_change_log (movie_id, change_time) VALUES (?, NOW())", movieId);
+        } catch (Exception e) {
+            log.warn("写入电影变更通知失败：movieId={}, error={}", movieId, e.getMessage());
+        }
+    }
 } 
\ No newline at end of file
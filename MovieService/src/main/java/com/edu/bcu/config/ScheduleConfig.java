@@ -0,0 +1,12 @@
+package com.edu.bcu.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 开启定时任务（计数缓冲区落库等）
+ */
+@Configuration
+@EnableScheduling
+public class ScheduleConfig {
+}
@@ -3,6 +3,10 @@ package com.edu.bcu.controller;
 import com.edu.bcu.dto.CommentAuditDTO;
 import com.edu.bcu.dto.CommentReportDTO;
 import com.edu.bcu.dto.CommentStatisticsDTO;
+import com.edu.bcu.dto.CommentThreadDTO;
+import com.edu.bcu.dto.CommentVoteDTO;
+import com.edu.bcu.dto.CursorPageDTO;
+import com.edu.bcu.dto.RatingDistributionDTO;
 import com.edu.bcu.entity.Comment;
 import com.edu.bcu.service.CommentService;
 import com.edu.bcu.service.MovieService;
@@ -41,6 +45,41 @@ public class CommentController {
         return commentService.getCommentsByMovieId(movieId, page, size, sort);
     }
 
+    @GetMapping("/movies/{movieId}/cursor")
+    public ResponseEntity<CursorPageDTO<Comment>> getCommentsByMovieCursor(
+            @PathVariable Long movieId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "time") String sort
+    ) {
+        try {
+            return ResponseEntity.ok(commentService.getCommentsByMovieIdAfter(movieId, cursor, size, sort));
+        } catch (IllegalArgumentException e) {
+            // 游标格式错误或与排序方式不匹配
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/movies/{movieId}/threads")
+    public Page<CommentThreadDTO> getCommentThreadsByMovie(
+            @PathVariable Long movieId,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "time") String sort,
+            @RequestParam(defaultValue = "3") int depth,
+            @RequestParam(defaultValue = "10") int replies
+    ) {
+        return commentService.getCommentThreads(movieId, page, size, sort, depth, replies);
+    }
+
+    /**
+     * 电影的评分分布（1-10 分各自的评论数）和贝叶斯加权分
+     */
+    @GetMapping("/movies/{movieId}/rating-distribution")
+    public RatingDistributionDTO getRatingDistribution(@PathVariable Long movieId) {
+        return commentService.getRatingDistribution(movieId);
+    }
+
     @DeleteMapping("/{commentId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteComment(@PathVariable Long commentId) {
@@ -55,25 +94,25 @@ public class CommentController {
 
     // 点赞接口
     @PostMapping("/{commentId}/like")
-    public Comment likeComment(@PathVariable Long commentId) {
+    public CommentVoteDTO likeComment(@PathVariable Long commentId) {
         return commentService.likeComment(commentId);
     }
 
     // 取消点赞接口
     @PostMapping("/{commentId}/unlike")
-    public Comment unlikeComment(@PathVariable Long commentId) {
+    public CommentVoteDTO unlikeComment(@PathVariable Long commentId) {
         return commentService.unlikeComment(commentId);
     }
 
     // 点踩接口
     @PostMapping("/{commentId}/dislike")
-    public Comment dislikeComment(@PathVariable Long commentId) {
+    public CommentVoteDTO dislikeComment(@PathVariable Long commentId) {
         return commentService.dislikeComment(commentId);
     }
 
     // 取消点踩接口
     @PostMapping("/{commentId}/undislike")
-    public Comment undislikeComment(@PathVariable Long commentId) {
+    public CommentVoteDTO undislikeComment(@PathVariable Long commentId) {
         return commentService.undislikeComment(commentId);
     }
 
@@ -94,6 +133,24 @@ public class CommentController {
         return ResponseEntity.ok(comments);
     }
     
+    /**
+     * 游标分页获取评论列表（管理后台）
+     */
+    @GetMapping("/admin/list/cursor")
+    public ResponseEntity<CursorPageDTO<Comment>> getAllCommentsForAdminCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "time") String sort,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String status) {
+        
+        try {
+            return ResponseEntity.ok(commentService.getAllCommentsForAdminAfter(keyword, status, cursor, size, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * 获取评论统计信息
      */
@@ -103,6 +160,29 @@ public class CommentController {
         return ResponseEntity.ok(statistics);
     }
     
+    /**
+     * 由评论表全量重建评分分布（一次性任务）
+     */
+    @PostMapping("/admin/rating-distribution/backfill")
+    public ResponseEntity<Map<String, Object>> backfillRatingDistribution() {
+        int movies = commentService.backfillRatingDistribution();
+        return ResponseEntity.ok(Map.of("movies", movies));
+    }
+
+    /**
+     * 立即重新加载违禁词词库（词库文件变化后也会定时自动加载）
+     */
+    @PostMapping("/admin/banned-words/reload")
+    public ResponseEntity<Map<String, Object>> reloadBannedWords() {
+        try {
+            int words = commentService.reloadBannedWords();
+            return ResponseEntity.ok(Map.of("words", words));
+        } catch (IllegalStateException e) {
+            // 词库文件缺失或不可读，旧词库仍在使用
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", e.getMessage()));
+        }
+    }
+
     /**
      * 获取评论详情
      */
@@ -130,10 +210,10 @@ public class CommentController {
     }
     
     /**
-     * 批量审核评论
+     * 批量审核评论，返回处理失败的评论 ID
      */
     @PutMapping("/batch/audit")
-    public ResponseEntity<Void> batchAuditComments(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> batchAuditComments(@RequestBody Map<String, Object> request) {
         try {
             @SuppressWarnings("unchecked")
             List<Object> idsObj = (List<Object>) request.get("ids");
@@ -178,8 +258,8 @@ public class CommentController {
                 return ResponseEntity.badRequest().build();
             }
             
-            commentService.batchAuditComments(ids, status);
-            return ResponseEntity.ok().build();
+            List<Long> failedIds = commentService.batchAuditComments(ids, status);
+            return ResponseEntity.ok(Map.of("failedIds", failedIds));
         } catch (Exception e) {
             e.printStackTrace(); // 添加错误日志
             return ResponseEntity.badRequest().build();
@@ -187,10 +267,10 @@ public class CommentController {
     }
     
     /**
-     * 批量删除评论
+     * 批量删除评论，返回处理失败的评论 ID
      */
     @DeleteMapping("/batch/delete")
-    public ResponseEntity<Void> batchDeleteComments(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> batchDeleteComments(@RequestBody Map<String, Object> request) {
         try {
             @SuppressWarnings("unchecked")
             List<Object> idsObj = (List<Object>) request.get("ids");
@@ -210,8 +290,8 @@ public class CommentController {
                     })
                     .collect(java.util.stream.Collectors.toList());
             
-            commentService.batchDeleteComments(ids);
-            return ResponseEntity.ok().build();
+            List<Long> failedIds = commentService.batchDeleteComments(ids);
+            return ResponseEntity.ok(Map.of("failedIds", failedIds));
         } catch (Exception e) {
             e.printStackTrace(); // 添加错误日志
             return ResponseEntity.badRequest().build();
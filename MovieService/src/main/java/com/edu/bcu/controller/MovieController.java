@@ -1,21 +1,41 @@
 package com.edu.bcu.controller;
 
+import com.edu.bcu.dto.MovieBrowsePageDTO;
+import com.edu.bcu.dto.MovieCardDTO;
+import com.edu.bcu.dto.MovieImportResultDTO;
+import com.edu.bcu.dto.MovieSuggestionDTO;
 import com.edu.bcu.entity.Category;
 import com.edu.bcu.entity.Movie;
+import com.edu.bcu.service.MovieCatalogVersion;
+import com.edu.bcu.service.MovieImportService;
+import com.edu.bcu.service.MovieRankingService;
 import com.edu.bcu.service.MovieService;
+import com.edu.bcu.service.MovieTrendingService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/movies")
 public class MovieController {
+    private static final String FULL_VIEW = "full";
+
     private final MovieService movieService;
+    private final MovieImportService importService;
+    private final MovieCatalogVersion catalogVersion;
 
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService, MovieImportService importService, MovieCatalogVersion catalogVersion) {
         this.movieService = movieService;
+        this.importService = importService;
+        this.catalogVersion = catalogVersion;
     }
 
     @PostMapping
@@ -24,10 +44,59 @@ public class MovieController {
         return movieService.createMovie(movie);
     }
 
+    /**
+     * 批量导入电影，请求体为 NDJSON（每行一个电影 JSON）或带表头的 CSV，边读边写入
+     * @param format csv 或 ndjson，不传时按 Content-Type 判断
+     */
+    @PostMapping("/import")
+    public MovieImportResultDTO importMovies(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = "Content-Type", required = false) String contentType,
+            InputStream body
+    ) throws IOException {
+        String type = format != null ? format : contentType;
+        if (type != null && type.toLowerCase().contains("csv")) {
+            return importService.importCsv(body);
+        }
+        return importService.importNdjson(body);
+    }
+
+    /**
+     * 批量获取电影详情，按 ids 顺序返回，不存在的电影跳过
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<List<Movie>> getMovies(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(movieService.getMoviesByIds(ids));
+        } catch (IllegalArgumentException e) {
+            // ID 数量超过单次上限
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 电影详情，ETag 由更新时间和内容摘要生成，未变化时返回 304
+     */
     @GetMapping("/{movieId}")
-    public Movie getMovie(@PathVariable Long movieId) {
-        return movieService.getMovieById(movieId)
+    public ResponseEntity<Movie> getMovie(@PathVariable Long movieId, WebRequest request) {
+        Movie movie = movieService.getMovieById(movieId)
                 .orElseThrow(() -> new RuntimeException("电影不存在"));
+        long lastModified = movie.getUpdateTime() == null ? -1 :
+                movie.getUpdateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // update_time 只精确到秒，同一秒内的多次修改靠内容摘要区分
+        String eTag = "\"movie-" + movieId + "-" + lastModified + "-" + Integer.toHexString(movie.hashCode()) + "\"";
+        if (request.checkNotModified(eTag, lastModified)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).lastModified(lastModified).body(movie);
+    }
+
+    @GetMapping("/{movieId}/similar")
+    public List<MovieCardDTO> getSimilarMovies(
+            @PathVariable Long movieId,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return movieService.getSimilarMovies(movieId, limit);
     }
 
     @PutMapping("/{movieId}")
@@ -41,39 +110,147 @@ public class MovieController {
         movieService.deleteMovie(movieId);
     }
 
+    /**
+     * 列表接口默认返回电影卡片，view=full 时返回完整电影
+     */
     @GetMapping("/categories/{categoryId}")
-    public List<Movie> getMoviesByCategory(@PathVariable String categoryId) {
-        return movieService.searchByCategory(categoryId);
+    public ResponseEntity<List<?>> getMoviesByCategory(
+            @PathVariable String categoryId,
+            @RequestParam(defaultValue = "card") String view,
+            WebRequest request
+    ) {
+        return catalogResponse(request, "category", () -> FULL_VIEW.equals(view) ?
+                movieService.searchByCategory(categoryId) :
+                movieService.searchCardsByCategory(categoryId));
     }
+    @GetMapping("/browse")
+    public ResponseEntity<MovieBrowsePageDTO> browseMovies(
+            @RequestParam(required = false) List<Integer> categories,
+            @RequestParam(defaultValue = "all") String match,
+            @RequestParam(required = false) List<Integer> exclude,
+            @RequestParam(required = false) Integer isVip,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(defaultValue = "new") String sort,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "card") String view
+    ) {
+        if (!"all".equals(match) && !"any".equals(match)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(movieService.browseByCategories(categories, "all".equals(match), exclude, isVip,
+                    status, sort, page, size, FULL_VIEW.equals(view)));
+        } catch (IllegalArgumentException e) {
+            // 页码超出范围
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/getCategories/{movieId}")
-    public List<Category> getCategoriesByMovieId(@PathVariable Long movieId) {
-        return movieService.getCategoriesByMovieId(movieId);
+    public ResponseEntity<List<Category>> getCategoriesByMovieId(@PathVariable Long movieId, WebRequest request) {
+        return catalogResponse(request, "movie-categories", () -> movieService.getCategoriesByMovieId(movieId));
     }
 
     @GetMapping("/rankings/hot")
-    public List<Movie> getHotMovies() {
-        return movieService.getHotMovies();
+    public ResponseEntity<List<?>> getHotMovies(
+            WebRequest request,
+            @RequestParam(defaultValue = "card") String view
+    ) {
+        MovieRankingService.Snapshot snapshot = movieService.getRankingSnapshot();
+        if (FULL_VIEW.equals(view)) {
+            return rankingResponse(request, snapshot.eTag("hot-full"), snapshot.hot());
+        }
+        return rankingResponse(request, snapshot.eTag("hot"), snapshot.hotCards());
     }
 
     @GetMapping("/rankings/recommended")
-    public List<Movie> getRecommendedMovies() {
-        return movieService.getRecommendedMovies();
+    public ResponseEntity<List<?>> getRecommendedMovies(
+            WebRequest request,
+            @RequestParam(defaultValue = "card") String view
+    ) {
+        MovieRankingService.Snapshot snapshot = movieService.getRankingSnapshot();
+        if (FULL_VIEW.equals(view)) {
+            return rankingResponse(request, snapshot.eTag("recommended-full"), snapshot.recommended());
+        }
+        return rankingResponse(request, snapshot.eTag("recommended"), snapshot.recommendedCards());
     }
     @GetMapping("/rankings/new")
-    public List<Movie> getNewMovies() {
-        return movieService.getNewMovice();
+    public ResponseEntity<List<?>> getNewMovies(
+            WebRequest request,
+            @RequestParam(defaultValue = "card") String view
+    ) {
+        MovieRankingService.Snapshot snapshot = movieService.getRankingSnapshot();
+        if (FULL_VIEW.equals(view)) {
+            return rankingResponse(request, snapshot.eTag("new-full"), snapshot.newest());
+        }
+        return rankingResponse(request, snapshot.eTag("new"), snapshot.newestCards());
+    }
+
+    /**
+     * 趋势榜：按近期观看次数和观看心跳计算、随时间衰减的热度排序
+     */
+    @GetMapping("/rankings/trending")
+    public ResponseEntity<List<?>> getTrendingMovies(
+            WebRequest request,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        MovieTrendingService.Snapshot snapshot = movieService.getTrendingSnapshot();
+        String eTag = snapshot.eTag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(movieService.getTrendingMovies(snapshot, limit));
+    }
+
+    // 快照版本未变时返回 304
+    private ResponseEntity<List<?>> rankingResponse(WebRequest request, String eTag, List<?> movies) {
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(movies);
     }
 
     @GetMapping
-    public Page<Movie> getAllMovies(
+    public ResponseEntity<Page<?>> getAllMovies(
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "card") String view,
+            WebRequest request
     ) {
-        return movieService.getAllMovies(page, size);
+        return catalogResponse(request, "movies", () -> FULL_VIEW.equals(view) ?
+                movieService.getAllMovies(page, size) :
+                movieService.getAllMovieCards(page, size));
+    }
+
+    // 目录版本未变时返回 304，不执行查询；版本号在查询前读取，查询期间发生的变更会在下次请求时生效
+    private <T> ResponseEntity<T> catalogResponse(WebRequest request, String collection, Supplier<T> loader) {
+        String eTag = catalogVersion.eTag(collection);
+        long lastModified = catalogVersion.lastModified();
+        if (request.checkNotModified(eTag, lastModified)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).lastModified(lastModified).body(loader.get());
     }
 
     @GetMapping("/search")
-    public List<Movie> searchMovies(@RequestParam String keyword) {
-        return movieService.searchByKeyword(keyword);
+    public Page<?> searchMovies(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "card") String view
+    ) {
+        if (FULL_VIEW.equals(view)) {
+            return movieService.searchByKeyword(keyword, page, size);
+        }
+        return movieService.searchCardsByKeyword(keyword, page, size);
+    }
+
+    @GetMapping("/suggest")
+    public List<MovieSuggestionDTO> suggestMovies(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return movieService.suggestTitles(prefix, limit);
     }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.edu.bcu.controller;
 
-import com.edu.bcu.entity.Movie;
 import com.edu.bcu.entity.UserFavorite;
 import com.edu.bcu.service.UserFavoriteService;
 import org.springframework.http.HttpStatus;
@@ -35,9 +34,29 @@ public class UserFavoriteController {
         favoriteService.removeFavorite(userId, movieId);
     }
 
+    /**
+     * 收藏列表，默认返回电影卡片，view=full 时返回完整电影
+     */
     @GetMapping
-    public List<Movie> getFavorites(@PathVariable Long userId) {
-        return favoriteService.getFavoriteMoviesByUserId(userId);
+    public List<?> getFavorites(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "card") String view
+    ) {
+        if ("full".equals(view)) {
+            return favoriteService.getFavoriteMoviesByUserId(userId);
+        }
+        return favoriteService.getFavoriteMovieCardsByUserId(userId);
+    }
+
+    /**
+     * 批量判断是否已收藏，返回与 movieIds 顺序一致的布尔数组
+     */
+    @GetMapping("/exists")
+    public boolean[] checkFavoritesExist(
+            @PathVariable Long userId,
+            @RequestParam List<Long> movieIds
+    ) {
+        return favoriteService.existsAll(userId, movieIds);
     }
 
     @GetMapping("/{movieId}/exists")
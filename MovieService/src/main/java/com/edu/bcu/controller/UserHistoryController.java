@@ -1,16 +1,18 @@
 package com.edu.bcu.controller;
 
+import com.edu.bcu.dto.HistoryMovieDTO;
+import com.edu.bcu.dto.HistoryMovieDetailDTO;
 import com.edu.bcu.entity.Movie;
 import com.edu.bcu.entity.UserHistory;
 import com.edu.bcu.service.UserHistoryService;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/history")
@@ -22,23 +24,31 @@ public class UserHistoryController {
     }
 
     @PostMapping("/{userId}/movies/{movieId}")
-    @ResponseStatus(HttpStatus.CREATED)
-    public UserHistory addOrUpdateHistory(
+    public ResponseEntity<UserHistory> addOrUpdateHistory(
             @PathVariable Long userId,
             @PathVariable Long movieId,
             @RequestParam(required = false) Integer progress,
             @RequestParam(required = false) Integer playTime
     ) {
-        return historyService.addOrUpdateHistory(userId, movieId, progress, playTime);
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(historyService.addOrUpdateHistory(userId, movieId, progress, playTime));
+        } catch (IllegalArgumentException e) {
+            // 用户或电影不存在
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            // 落库持续失败、缓冲区已满，客户端稍后重试
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     @GetMapping("/{userId}/movies")
-    public List<Map<String, Object>> getHistoryMovies(@PathVariable Long userId) {
+    public List<HistoryMovieDetailDTO> getHistoryMovies(@PathVariable Long userId) {
         return historyService.getHistoryMovies(userId);
     }
 
     @GetMapping("/{userId}/movies/page")
-    public Page<Map<String, Object>> getHistoryMovies(
+    public Page<HistoryMovieDTO> getHistoryMovies(
             @PathVariable Long userId,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size
@@ -47,7 +57,7 @@ public class UserHistoryController {
     }
 
     @GetMapping("/{userId}/movies/time-range")
-    public Page<Map<String, Object>> getHistoryMoviesByTimeRange(
+    public Page<HistoryMovieDTO> getHistoryMoviesByTimeRange(
             @PathVariable Long userId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
@@ -28,12 +28,15 @@ public class VipMovieViewCountController {
     }
 
     /**
-     * 返回按总观看次数降序排列的电影列表
+     * 分页返回按总观看次数降序排列的电影列表
      * @return
      */
     @GetMapping("/movies")
-    public List<Movie> getMoviesOrderByViewCountDesc() {
-        return MovieViewService.getMoviesOrderByViewCountDesc();
+    public List<Movie> getMoviesOrderByViewCountDesc(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return MovieViewService.getMoviesOrderByViewCountDesc(page, size);
     }
 
     /**
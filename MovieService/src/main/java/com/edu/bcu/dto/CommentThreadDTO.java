@@ -0,0 +1,39 @@
+package com.edu.bcu.dto;
+
+import com.edu.bcu.entity.Comment;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 评论楼层（评论及其回复树）
+ */
+@Data
+@NoArgsConstructor
+public class CommentThreadDTO {
+    /**
+     * 评论本身
+     */
+    private Comment comment;
+
+    /**
+     * 已加载的直接回复，按时间正序
+     */
+    private List<CommentThreadDTO> replies = new ArrayList<>();
+
+    /**
+     * 直接回复总数，未展开到的层级为 null
+     */
+    private Integer replyCount;
+
+    /**
+     * 是否有因数量上限未返回的直接回复
+     */
+    private boolean hasMoreReplies;
+
+    public CommentThreadDTO(Comment comment) {
+        this.comment = comment;
+    }
+}
@@ -0,0 +1,19 @@
+package com.edu.bcu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 点赞/点踩后的评论票数（已叠加尚未落库的增量）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentVoteDTO {
+    private Integer id;
+
+    private Integer likeCount;
+
+    private Integer dislikeCount;
+}
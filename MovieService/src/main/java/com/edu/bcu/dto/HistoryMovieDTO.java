@@ -0,0 +1,25 @@
+package com.edu.bcu.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 观看历史列表项：电影摘要 + 观看进度
+ * 由 user_history 与 movie 的一次联表查询直接构造
+ */
+public record HistoryMovieDTO(MovieCardDTO movie, HistoryInfo history) {
+
+    /**
+     * JPQL 构造表达式使用的扁平构造器
+     */
+    public HistoryMovieDTO(Long movieId, String title, String posterUrl, Double rating, Integer runtime, Integer isVip,
+                           Integer playTime, Integer progress, LocalDateTime createTime, LocalDateTime updateTime) {
+        this(new MovieCardDTO(movieId, title, posterUrl, rating, runtime, isVip),
+                new HistoryInfo(playTime, progress, createTime, updateTime));
+    }
+
+    /**
+     * 观看进度
+     */
+    public record HistoryInfo(Integer playTime, Integer progress, LocalDateTime createTime, LocalDateTime updateTime) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.edu.bcu.dto;
+
+import com.edu.bcu.entity.Movie;
+
+import java.time.LocalDateTime;
+
+/**
+ * 不分页观看历史的列表项：完整电影 + 观看进度
+ * 由 user_history 与 movie 的一次联表查询直接构造
+ */
+public record HistoryMovieDetailDTO(Movie movie, HistoryMovieDTO.HistoryInfo history) {
+
+    /**
+     * JPQL 构造表达式使用的构造器
+     */
+    public HistoryMovieDetailDTO(Movie movie, Integer playTime, Integer progress,
+                                 LocalDateTime createTime, LocalDateTime updateTime) {
+        this(movie, new HistoryMovieDTO.HistoryInfo(playTime, progress, createTime, updateTime));
+    }
+}
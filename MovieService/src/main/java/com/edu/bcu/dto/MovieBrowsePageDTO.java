@@ -0,0 +1,41 @@
+package com.edu.bcu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分类筛选结果（含分面计数）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieBrowsePageDTO {
+    /**
+     * 本页电影，默认为 MovieCardDTO，view=full 时为完整的 Movie
+     */
+    private List<?> content;
+
+    /**
+     * 符合条件的电影总数
+     */
+    private long totalElements;
+
+    /**
+     * 页码（从 1 开始）
+     */
+    private int page;
+
+    /**
+     * 每页条数
+     */
+    private int size;
+
+    /**
+     * 当前筛选结果中每个分类的电影数（分类ID -> 数量）
+     */
+    private Map<Integer, Integer> categoryCounts;
+}
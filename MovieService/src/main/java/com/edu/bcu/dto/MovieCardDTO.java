@@ -0,0 +1,15 @@
+package com.edu.bcu.dto;
+
+import com.edu.bcu.entity.Movie;
+
+/**
+ * 列表页使用的电影卡片，只含列表展示需要的字段
+ * 由 JPQL 构造表达式直接查询，不读取简介、演职员、播放地址等大字段
+ */
+public record MovieCardDTO(Long id, String title, String posterUrl, Double rating, Integer runtime, Integer isVip) {
+
+    public static MovieCardDTO from(Movie movie) {
+        return new MovieCardDTO(movie.getId(), movie.getTitle(), movie.getPosterUrl(), movie.getRating(),
+                movie.getRuntime(), movie.getIsVip());
+    }
+}
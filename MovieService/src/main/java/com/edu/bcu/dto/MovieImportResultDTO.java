@@ -0,0 +1,65 @@
+package com.edu.bcu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 电影批量导入结果
+ */
+@Data
+@NoArgsConstructor
+public class MovieImportResultDTO {
+    /**
+     * 读取到的记录数
+     */
+    private long total;
+
+    /**
+     * 成功导入数
+     */
+    private long imported;
+
+    /**
+     * 失败数
+     */
+    private long failed;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long elapsedMillis;
+
+    /**
+     * 每秒导入条数
+     */
+    private double rowsPerSecond;
+
+    /**
+     * 失败记录明细，以及已导入但有未识别分类的记录，最多保留配置的条数
+     */
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * 失败明细是否因数量上限被截断
+     */
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        /**
+         * 记录所在行号
+         */
+        private long line;
+
+        /**
+         * 失败原因
+         */
+        private String message;
+    }
+}
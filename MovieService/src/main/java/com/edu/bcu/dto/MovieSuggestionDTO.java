@@ -0,0 +1,33 @@
+package com.edu.bcu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 标题联想结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieSuggestionDTO {
+    /**
+     * 电影ID
+     */
+    private Long id;
+
+    /**
+     * 标题
+     */
+    private String title;
+
+    /**
+     * 原名
+     */
+    private String originalTitle;
+
+    /**
+     * 海报URL
+     */
+    private String posterUrl;
+}
@@ -0,0 +1,35 @@
+package com.edu.bcu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 电影评分分布数据传输对象
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingDistributionDTO {
+    private Long movieId;
+
+    /**
+     * counts[i] 为评 i + 1 分的评论数
+     */
+    private int[] counts;
+
+    /**
+     * 参与统计的评分条数
+     */
+    private Long total;
+
+    /**
+     * 算术平均分，没有评分时为 null
+     */
+    private Double average;
+
+    /**
+     * 贝叶斯加权分：(C * 全站平均分 + 评分总和) / (C + 评分条数)，评分少的电影向全站平均分收缩
+     */
+    private Double weightedScore;
+}
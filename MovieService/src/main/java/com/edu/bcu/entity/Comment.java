@@ -11,7 +11,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "comment")
+@Table(name = "comment", indexes = {
+        @Index(name = "idx_comment_movie_time", columnList = "movie_id, create_time, id"),
+        @Index(name = "idx_comment_movie_like", columnList = "movie_id, like_count, id"),
+        @Index(name = "idx_comment_status_time", columnList = "status, create_time, id"),
+        @Index(name = "idx_comment_parent_time", columnList = "parent_id, create_time, id")
+})
 public class Comment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,9 +29,10 @@ public class Comment {
     private Integer rating;
     @Column(name = "parent_id")
     private Long parentId;
-    @Column(name = "like_count")
+    // 点赞/点踩数由 CommentVoteBuffer 通过增量 UPDATE 维护，JPA 更新时不覆盖
+    @Column(name = "like_count", updatable = false)
     private Integer likeCount;
-    @Column(name = "dislike_count")
+    @Column(name = "dislike_count", updatable = false)
     private Integer dislikeCount;
     private Integer status;
     @Column(name = "create_time")
@@ -62,6 +68,12 @@ public class Comment {
     protected void onCreate() {
         createTime = LocalDateTime.now();
         updateTime = LocalDateTime.now();
+        if (likeCount == null) {
+            likeCount = 0;
+        }
+        if (dislikeCount == null) {
+            dislikeCount = 0;
+        }
     }
 
     @PreUpdate
@@ -33,9 +33,14 @@ public class Movie {
     private Integer runtime;
     @Column(name = "imdb_id")
     private String imdbId;
+    // 评分由 RatingAggregator 通过增量 UPDATE 维护，JPA 更新时不覆盖
+    @Column(updatable = false)
     private Double rating;
-    @Column(name = "rating_count")
+    @Column(name = "rating_count", updatable = false)
     private Integer ratingCount;
+    // 新增列时不设默认值，旧数据为 NULL，由 RatingAggregator 启动时按 rating * rating_count 补齐
+    @Column(name = "rating_sum", updatable = false)
+    private Long ratingSum;
     private String description;
     @Column(name = "poster_url")
     private String posterUrl;
@@ -58,6 +63,12 @@ public class Movie {
     protected void onCreate() {
         createTime = LocalDateTime.now();
         updateTime = LocalDateTime.now();
+        if (ratingCount == null) {
+            ratingCount = 0;
+        }
+        if (ratingSum == null) {
+            ratingSum = rating == null ? 0L : Math.round(rating * ratingCount);
+        }
     }
 
     @PreUpdate
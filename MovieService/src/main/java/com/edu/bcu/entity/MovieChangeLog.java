@@ -0,0 +1,30 @@
+package com.edu.bcu.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 电影变更通知，各实例轮询该表使本地电影缓存失效
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "movie_change_log", indexes = {
+        @Index(name = "idx_movie_change_time", columnList = "change_time")
+})
+public class MovieChangeLog {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "movie_id", nullable = false)
+    private Long movieId;
+
+    @Column(name = "change_time", columnDefinition = "datetime default CURRENT_TIMESTAMP")
+    private LocalDateTime changeTime;
+}
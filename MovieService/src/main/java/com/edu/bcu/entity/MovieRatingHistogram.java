@@ -0,0 +1,55 @@
+package com.edu.bcu.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 电影评分分布，star_n 为评 n 分的评论数（不含审核拒绝的评论），由评论的增删改和审核按增量维护
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "movie_rating_histogram")
+public class MovieRatingHistogram {
+    @Id
+    @Column(name = "movie_id")
+    private Long movieId;
+
+    @Column(name = "star_1", nullable = false, columnDefinition = "int default 0")
+    private Integer star1;
+
+    @Column(name = "star_2", nullable = false, columnDefinition = "int default 0")
+    private Integer star2;
+
+    @Column(name = "star_3", nullable = false, columnDefinition = "int default 0")
+    private Integer star3;
+
+    @Column(name = "star_4", nullable = false, columnDefinition = "int default 0")
+    private Integer star4;
+
+    @Column(name = "star_5", nullable = false, columnDefinition = "int default 0")
+    private Integer star5;
+
+    @Column(name = "star_6", nullable = false, columnDefinition = "int default 0")
+    private Integer star6;
+
+    @Column(name = "star_7", nullable = false, columnDefinition = "int default 0")
+    private Integer star7;
+
+    @Column(name = "star_8", nullable = false, columnDefinition = "int default 0")
+    private Integer star8;
+
+    @Column(name = "star_9", nullable = false, columnDefinition = "int default 0")
+    private Integer star9;
+
+    @Column(name = "star_10", nullable = false, columnDefinition = "int default 0")
+    private Integer star10;
+
+    @Column(name = "update_time")
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,62 @@
+package com.edu.bcu.repository.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class CommentVoteJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public CommentVoteJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 把旧数据中为 NULL 的计数补成 0，保证按 like_count 的游标分页不漏行
+     */
+    public int fillNullCounts() {
+        return jdbcTemplate.update("UPDATE comment SET like_count = IFNULL(like_count, 0), dislike_count = IFNULL(dislike_count, 0) " +
+                "WHERE like_count IS NULL OR dislike_count IS NULL");
+    }
+
+    /**
+     * 一条多行 UPDATE 累加多条评论的点赞/点踩数，计数不会小于 0
+     * @param rows 每行为 {commentId, likeDelta, dislikeDelta}
+     */
+    public int applyVoteDeltas(List<long[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        StringBuilder likeCase = new StringBuilder("CASE id");
+        StringBuilder dislikeCase = new StringBuilder("CASE id");
+        StringBuilder in = new StringBuilder();
+        List<Object> likeArgs = new ArrayList<>(rows.size() * 2);
+        List<Object> dislikeArgs = new ArrayList<>(rows.size() * 2);
+        List<Object> inArgs = new ArrayList<>(rows.size());
+        for (long[] row : rows) {
+            likeCase.append(" WHEN ? THEN ?");
+            dislikeCase.append(" WHEN ? THEN ?");
+            in.append(in.length() == 0 ? "?" : ", ?");
+            likeArgs.add(row[0]);
+            likeArgs.add(row[1]);
+            dislikeArgs.add(row[0]);
+            dislikeArgs.add(row[2]);
+            inArgs.add(row[0]);
+        }
+        likeCase.append(" ELSE 0 END");
+        dislikeCase.append(" ELSE 0 END");
+
+        String sql = "UPDATE comment SET " +
+                "like_count = GREATEST(IFNULL(like_count, 0) + " + likeCase + ", 0), " +
+                "dislike_count = GREATEST(IFNULL(dislike_count, 0) + " + dislikeCase + ", 0) " +
+                "WHERE id IN (" + in + ")";
+        List<Object> args = new ArrayList<>(likeArgs.size() + dislikeArgs.size() + inArgs.size());
+        args.addAll(likeArgs);
+        args.addAll(dislikeArgs);
+        args.addAll(inArgs);
+        return jdbcTemplate.update(sql, args.toArray());
+    }
+}
@@ -0,0 +1,135 @@
+package com.edu.bcu.repository.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class MovieCategoryJdbcRepository {
+    // (movie_id, category_id) 有唯一索引，重复的关联直接忽略
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO movie_category (movie_id, category_id, create_time) VALUES (?, ?, NOW())";
+
+    private static final String DELETE_BY_MOVIE_ID_SQL = "DELETE FROM movie_category WHERE movie_id = ?";
+
+    // 排序与 MovieCategoryIndex 一致：评分降序（无评分按 0），上架时间降序（无时间排在最后）
+    private static final String ORDER_BY_RATING = " ORDER BY IFNULL(m.rating, 0) DESC, m.create_time IS NULL, m.create_time DESC, m.id";
+    private static final String ORDER_BY_RECENCY = " ORDER BY m.create_time IS NULL, m.create_time DESC, m.id DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieCategoryJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 一次批量写入电影的全部分类关联
+     */
+    public void batchInsert(Long movieId, Collection<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(categoryIds.size());
+        for (Long categoryId : categoryIds) {
+            rows.add(new Object[]{movieId, categoryId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * 删除电影的全部分类关联
+     */
+    public int deleteByMovieId(Long movieId) {
+        return jdbcTemplate.update(DELETE_BY_MOVIE_ID_SQL, movieId);
+    }
+
+    /**
+     * 批量写入多部电影的分类关联
+     * @param rows 每行为 {movieId, categoryId}
+     */
+    public void batchInsert(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    /**
+     * 按分类组合条件统计电影数，条件含义与 MovieCategoryIndex.query 一致
+     */
+    public long countMatching(Collection<Integer> include, boolean matchAll, Collection<Integer> exclude,
+                              Integer isVip, Integer status) {
+        List<Object> args = new ArrayList<>();
+        String where = where(args, include, matchAll, exclude, isVip, status);
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movie m" + where, Long.class, args.toArray());
+        return total == null ? 0 : total;
+    }
+
+    /**
+     * 按分类组合条件分页查询电影 ID
+     * @param byRating true 按评分降序，否则按上架时间降序
+     */
+    public long[] findMatchingIds(Collection<Integer> include, boolean matchAll, Collection<Integer> exclude,
+                                  Integer isVip, Integer status, boolean byRating, int offset, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT m.id FROM movie m" + where(args, include, matchAll, exclude, isVip, status) +
+                (byRating ? ORDER_BY_RATING : ORDER_BY_RECENCY) + " LIMIT ? OFFSET ?";
+        args.add(limit);
+        args.add(offset);
+        return jdbcTemplate.queryForList(sql, Long.class, args.toArray()).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 符合条件的电影中每个分类的电影数，按分类 ID 升序
+     */
+    public Map<Integer, Integer> countMatchingByCategory(Collection<Integer> include, boolean matchAll,
+                                                         Collection<Integer> exclude, Integer isVip, Integer status) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT mc.category_id, COUNT(DISTINCT mc.movie_id) FROM movie_category mc " +
+                "JOIN movie m ON m.id = mc.movie_id" + where(args, include, matchAll, exclude, isVip, status) +
+                " GROUP BY mc.category_id ORDER BY mc.category_id";
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getInt(1), rs.getInt(2));
+        }, args.toArray());
+        return counts;
+    }
+
+    private static String where(List<Object> args, Collection<Integer> include, boolean matchAll,
+                                Collection<Integer> exclude, Integer isVip, Integer status) {
+        StringBuilder sql = new StringBuilder(" WHERE 1 = 1");
+        if (include != null && !include.isEmpty()) {
+            sql.append(" AND m.id IN (SELECT movie_id FROM movie_category WHERE category_id IN (")
+                    .append(placeholders(include.size())).append(")");
+            args.addAll(include);
+            if (matchAll) {
+                sql.append(" GROUP BY movie_id HAVING COUNT(DISTINCT category_id) = ?");
+                args.add(new HashSet<>(include).size());
+            }
+            sql.append(")");
+        }
+        if (exclude != null && !exclude.isEmpty()) {
+            sql.append(" AND m.id NOT IN (SELECT movie_id FROM movie_category WHERE movie_id IS NOT NULL AND category_id IN (")
+                    .append(placeholders(exclude.size())).append("))");
+            args.addAll(exclude);
+        }
+        if (isVip != null) {
+            sql.append(isVip == 1 ? " AND m.is_vip = 1" : " AND (m.is_vip IS NULL OR m.is_vip <> 1)");
+        }
+        if (status != null) {
+            sql.append(" AND m.status = ?");
+            args.add(status);
+        }
+        return sql.toString();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
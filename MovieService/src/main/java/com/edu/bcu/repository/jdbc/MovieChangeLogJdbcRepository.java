@@ -0,0 +1,65 @@
+package com.edu.bcu.repository.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class MovieChangeLogJdbcRepository {
+    private static final String INSERT_SQL = "INSERT INTO movie_change_log (movie_id, change_time) VALUES (?, NOW())";
+
+    private static final String FIND_AFTER_SQL =
+            "SELECT id, movie_id FROM movie_change_log WHERE id > ? ORDER BY id LIMIT ?";
+
+    // 已轮询过的 id 之前、最近一段时间内写入的变更，用于补读提交较晚的事务
+    private static final String FIND_RECENT_SQL =
+            "SELECT id, movie_id FROM movie_change_log WHERE change_time >= NOW() - INTERVAL ? SECOND AND id <= ? " +
+            "ORDER BY id";
+
+    private static final String DELETE_BEFORE_SQL =
+            "DELETE FROM movie_change_log WHERE change_time < NOW() - INTERVAL ? SECOND";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieChangeLogJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(Collection<Long> movieIds) {
+        List<Object[]> rows = new ArrayList<>(movieIds.size());
+        for (Long movieId : movieIds) {
+            rows.add(new Object[]{movieId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * 按 id 顺序读取 lastId 之后的变更
+     * @return 每行为 {id, movieId}
+     */
+    public List<long[]> findAfter(long lastId, int limit) {
+        return jdbcTemplate.query(FIND_AFTER_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, lastId, limit);
+    }
+
+    /**
+     * 最近 seconds 秒内写入且 id 不超过 maxId 的变更
+     * @return 每行为 {id, movieId}
+     */
+    public List<long[]> findRecent(long seconds, long maxId) {
+        return jdbcTemplate.query(FIND_RECENT_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, seconds, maxId);
+    }
+
+    public long maxId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM movie_change_log", Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    public int deleteOlderThan(long seconds) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, seconds);
+    }
+}
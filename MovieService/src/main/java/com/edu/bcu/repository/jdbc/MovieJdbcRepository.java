@@ -0,0 +1,58 @@
+package com.edu.bcu.repository.jdbc;
+
+import com.edu.bcu.entity.Movie;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+@Repository
+public class MovieJdbcRepository {
+    // 驱动开启 rewriteBatchedStatements 后一批只发送一条多行 INSERT
+    private static final String INSERT_SQL =
+            "INSERT INTO movie (title, original_title, director, writers, actors, genres, country, language, " +
+            "release_date, runtime, imdb_id, rating, rating_count, rating_sum, description, poster_url, trailer_url, " +
+            "play_url, is_recommended, is_hot, is_vip, status, create_time, update_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量插入电影，并把生成的主键回填到传入的对象上
+     */
+    public void batchInsert(List<Movie> movies) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Movie movie : movies) {
+                    int ratingCount = movie.getRatingCount() == null ? 0 : movie.getRatingCount();
+                    Long ratingSum = movie.getRatingSum() != null ? movie.getRatingSum() :
+                            movie.getRating() == null ? 0L : Math.round(movie.getRating() * ratingCount);
+                    Object[] values = {movie.getTitle(), movie.getOriginalTitle(), movie.getDirector(), movie.getWriters(),
+                            movie.getActors(), movie.getGenres(), movie.getCountry(), movie.getLanguage(),
+                            movie.getReleaseDate(), movie.getRuntime(), movie.getImdbId(), movie.getRating(),
+                            ratingCount, ratingSum, movie.getDescription(), movie.getPosterUrl(), movie.getTrailerUrl(),
+                            movie.getPlayUrl(), movie.getIsRecommended(), movie.getIsHot(), movie.getIsVip(), movie.getStatus()};
+                    for (int i = 0; i < values.length; i++) {
+                        ps.setObject(i + 1, values[i]);
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (int i = 0; i < movies.size() && keys.next(); i++) {
+                        movies.get(i).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
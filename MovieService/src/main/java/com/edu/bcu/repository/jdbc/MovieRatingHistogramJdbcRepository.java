@@ -0,0 +1,126 @@
+package com.edu.bcu.repository.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 电影评分分布（movie_rating_histogram），star_1 .. star_10 为评 1 到 10 分的评论数
+ */
+@Repository
+public class MovieRatingHistogramJdbcRepository {
+    public static final int BUCKETS = 10;
+
+    private static final String STAR_COLUMNS;
+    private static final String APPLY_DELTA_SQL;
+    private static final String INSERT_SQL;
+    private static final String FIND_BY_MOVIE_ID_SQL;
+    private static final String GLOBAL_TOTALS_SQL;
+
+    static {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
+        StringBuilder updates = new StringBuilder();
+        StringBuilder weightedSum = new StringBuilder();
+        StringBuilder count = new StringBuilder();
+        for (int star = 1; star <= BUCKETS; star++) {
+            String column = "star_" + star;
+            String separator = star == 1 ? "" : ", ";
+            columns.append(separator).append(column);
+            placeholders.append(", ?");
+            updates.append(column).append(" = ").append(column).append(" + VALUES(").append(column).append("), ");
+            weightedSum.append(star == 1 ? "" : " + ").append(column).append(" * ").append(star);
+            count.append(star == 1 ? "" : " + ").append(column);
+        }
+        STAR_COLUMNS = columns.toString();
+        // 同一行的增量由 InnoDB 行锁保证原子累加
+        APPLY_DELTA_SQL = "INSERT INTO movie_rating_histogram (movie_id, " + STAR_COLUMNS + ", update_time) " +
+                "VALUES (?" + placeholders + ", NOW()) ON DUPLICATE KEY UPDATE " + updates + "update_time = NOW()";
+        INSERT_SQL = "INSERT INTO movie_rating_histogram (movie_id, " + STAR_COLUMNS + ", update_time) " +
+                "VALUES (?" + placeholders + ", NOW())";
+        FIND_BY_MOVIE_ID_SQL = "SELECT " + STAR_COLUMNS + " FROM movie_rating_histogram WHERE movie_id = ?";
+        GLOBAL_TOTALS_SQL = "SELECT IFNULL(SUM(" + weightedSum + "), 0), IFNULL(SUM(" + count + "), 0) " +
+                "FROM movie_rating_histogram";
+    }
+
+    private static final String COMMENT_ID_RANGE_SQL = "SELECT IFNULL(MIN(id), 0), IFNULL(MAX(id), 0) FROM comment";
+
+    // 与 RatingHistogramService 的计数规则一致：1-10 分，不区分审核状态
+    private static final String COUNT_COMMENT_RATINGS_SQL =
+            "SELECT movie_id, rating, COUNT(*) FROM comment " +
+            "WHERE id BETWEEN ? AND ? AND movie_id IS NOT NULL AND rating BETWEEN 1 AND " + BUCKETS + " " +
+                        "GROUP BY movie_id, rating";
+
+    private static final String DELETE_ALL_SQL = "DELETE FROM movie_rating_histogram";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieRatingHistogramJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量累加评分分布，不存在的行直接插入
+     * @param rows 每行为 {movieId, star_1 增量, ..., star_10 增量}
+     */
+    public void batchApplyDelta(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, rows);
+    }
+
+    /**
+     * @return 长度为 10 的计数数组，没有记录时返回 null
+     */
+    public int[] findByMovieId(Long movieId) {
+        List<int[]> rows = jdbcTemplate.query(FIND_BY_MOVIE_ID_SQL, (rs, rowNum) -> {
+            int[] counts = new int[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = rs.getInt(i + 1);
+            }
+            return counts;
+        }, movieId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * 全站评分总和与评分条数
+     * @return {评分总和, 评分条数}
+     */
+    public long[] globalTotals() {
+        return jdbcTemplate.queryForObject(GLOBAL_TOTALS_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    /**
+     * @return {最小评论 ID, 最大评论 ID}，没有评论时为 {0, 0}
+     */
+    public long[] findCommentIdRange() {
+        return jdbcTemplate.queryForObject(COMMENT_ID_RANGE_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    /**
+     * 统计评论 ID 在 [fromId, toId] 内的评分分布
+     * @return 每行为 {movieId, rating, count}
+     */
+    public List<long[]> countCommentRatings(long fromId, long toId) {
+        return jdbcTemplate.query(COUNT_COMMENT_RATINGS_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, fromId, toId);
+    }
+
+    public boolean isEmpty() {
+        List<Integer> rows = jdbcTemplate.queryForList("SELECT 1 FROM movie_rating_histogram LIMIT 1", Integer.class);
+        return rows.isEmpty();
+    }
+
+    /**
+     * 清空后重新写入，需在事务中调用
+     * @param rows 每行为 {movieId, star_1, ..., star_10}
+     */
+    public void replaceAll(List<Object[]> rows, int batchSize) {
+        jdbcTemplate.update(DELETE_ALL_SQL);
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+}
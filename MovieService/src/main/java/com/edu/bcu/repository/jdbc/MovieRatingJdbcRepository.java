@@ -0,0 +1,46 @@
+package com.edu.bcu.repository.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class MovieRatingJdbcRepository {
+    // 旧数据没有有效的 rating_sum：列为 NULL，或按 bigint default 0 新增列时被填为 0 而 rating_count > 0
+    private static final String LEGACY_RATING_SUM =
+            "(rating_sum IS NULL OR rating_sum = 0 AND IFNULL(rating_count, 0) > 0)";
+
+    // 按现有的 rating * rating_count 估算旧数据的 rating_sum
+    private static final String ESTIMATED_RATING_SUM = "ROUND(IFNULL(rating, 0) * IFNULL(rating_count, 0))";
+
+    // MySQL 单表 UPDATE 按从左到右的顺序赋值，rating 使用的是累加后的 rating_sum/rating_count；
+    // 启动补齐之前落库的增量也先按估算值补齐 rating_sum，不会把已有评分当作 0 累加
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE movie SET rating_sum = IF(" + LEGACY_RATING_SUM + ", " + ESTIMATED_RATING_SUM + ", rating_sum) + ?, " +
+            "rating_count = IFNULL(rating_count, 0) + ?, " +
+            "rating = IF(rating_count > 0, ROUND(rating_sum / rating_count, 1), 0), " +
+            "update_time = NOW() " +
+            "WHERE id = ?";
+
+    private static final String BACKFILL_RATING_SUM_SQL =
+            "UPDATE movie SET rating_sum = " + ESTIMATED_RATING_SUM + " WHERE " + LEGACY_RATING_SUM;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieRatingJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量累加评分
+     * @param rows 每行为 {sumDelta, countDelta, movieId}
+     */
+    public void batchApplyDelta(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, rows);
+    }
+
+    public int backfillRatingSum() {
+        return jdbcTemplate.update(BACKFILL_RATING_SUM_SQL);
+    }
+}
@@ -0,0 +1,64 @@
+package com.edu.bcu.repository.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class UserHistoryJdbcRepository {
+    // 依赖 idx_user_movie_time 唯一索引；只更新本次带上的字段，新行缺省字段为 0
+    private static final String UPSERT_BOTH_SQL =
+            "INSERT INTO user_history (user_id, movie_id, play_time, progress, update_time) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE play_time = VALUES(play_time), progress = VALUES(progress), update_time = VALUES(update_time)";
+    private static final String UPSERT_PLAY_TIME_SQL =
+            "INSERT INTO user_history (user_id, movie_id, play_time, progress, update_time) VALUES (?, ?, ?, 0, ?) " +
+            "ON DUPLICATE KEY UPDATE play_time = VALUES(play_time), update_time = VALUES(update_time)";
+    private static final String UPSERT_PROGRESS_SQL =
+            "INSERT INTO user_history (user_id, movie_id, play_time, progress, update_time) VALUES (?, ?, 0, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE progress = VALUES(progress), update_time = VALUES(update_time)";
+    private static final String UPSERT_TOUCH_SQL =
+            "INSERT INTO user_history (user_id, movie_id, play_time, progress, update_time) VALUES (?, ?, 0, 0, ?) " +
+            "ON DUPLICATE KEY UPDATE update_time = VALUES(update_time)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserHistoryJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量写入观看记录
+     * @param rows 每行为 {userId, movieId, playTime, progress, updateTime}，playTime/progress 为 null 时保留原值
+     */
+    public void batchUpsert(List<Object[]> rows) {
+        List<Object[]> both = new ArrayList<>();
+        List<Object[]> playTimeOnly = new ArrayList<>();
+        List<Object[]> progressOnly = new ArrayList<>();
+        List<Object[]> touchOnly = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (row[2] != null && row[3] != null) {
+                both.add(row);
+            } else if (row[2] != null) {
+                playTimeOnly.add(new Object[]{row[0], row[1], row[2], row[4]});
+            } else if (row[3] != null) {
+                progressOnly.add(new Object[]{row[0], row[1], row[3], row[4]});
+            } else {
+                touchOnly.add(new Object[]{row[0], row[1], row[4]});
+            }
+        }
+        if (!both.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_BOTH_SQL, both);
+        }
+        if (!playTimeOnly.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_PLAY_TIME_SQL, playTimeOnly);
+        }
+        if (!progressOnly.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_PROGRESS_SQL, progressOnly);
+        }
+        if (!touchOnly.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_TOUCH_SQL, touchOnly);
+        }
+    }
+}
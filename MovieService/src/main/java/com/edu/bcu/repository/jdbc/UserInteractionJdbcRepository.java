@@ -0,0 +1,40 @@
+package com.edu.bcu.repository.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 用户与电影的交互记录（收藏、观看历史），供相似电影计算按 id 分批读取
+ */
+@Repository
+public class UserInteractionJdbcRepository {
+    private static final String FAVORITES_AFTER_SQL =
+            "SELECT id, user_id, movie_id FROM user_favorite WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String HISTORIES_AFTER_SQL =
+            "SELECT id, user_id, movie_id FROM user_history WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserInteractionJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return 每行为 {id, userId, movieId}
+     */
+    public List<long[]> findFavoritesAfter(long lastId, int limit) {
+        return jdbcTemplate.query(FAVORITES_AFTER_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, lastId, limit);
+    }
+
+    /**
+     * @return 每行为 {id, userId, movieId}
+     */
+    public List<long[]> findHistoriesAfter(long lastId, int limit) {
+        return jdbcTemplate.query(HISTORIES_AFTER_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, lastId, limit);
+    }
+}
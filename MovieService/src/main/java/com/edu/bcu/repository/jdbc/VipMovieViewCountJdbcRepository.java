@@ -0,0 +1,28 @@
+package com.edu.bcu.repository.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class VipMovieViewCountJdbcRepository {
+    // 使用 VALUES(view_count) 引用增量，保证驱动能把批量改写成一条多行 INSERT
+    private static final String UPSERT_SQL =
+            "INSERT INTO vip_movie_view_count (user_id, movie_id, view_count) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE view_count = IFNULL(view_count, 0) + VALUES(view_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VipMovieViewCountJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量累加观看次数
+     * @param rows 每行为 {userId, movieId, delta}
+     */
+    public void batchIncrement(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+}
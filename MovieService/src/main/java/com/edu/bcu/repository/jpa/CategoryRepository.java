@@ -2,9 +2,14 @@ package com.edu.bcu.repository.jpa;
 
 import com.edu.bcu.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findByParentId(Long parentId);
+
+    // 分类表版本：{数量, 最近更新时间}，用于判断分类字典是否需要重新加载
+    @Query("SELECT COUNT(c), MAX(c.updateTime) FROM Category c")
+    List<Object[]> findVersion();
 }
\ No newline at end of file
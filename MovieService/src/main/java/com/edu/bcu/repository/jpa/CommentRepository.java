@@ -1,12 +1,19 @@
 package com.edu.bcu.repository.jpa;
 
+import com.edu.bcu.dto.CommentVoteDTO;
 import com.edu.bcu.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,14 +38,96 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     
     @Query("SELECT COUNT(c) FROM Comment c")
     Long countTotal();
+
+    @Query("SELECT c.status, COUNT(c) FROM Comment c GROUP BY c.status")
+    List<Object[]> countGroupByStatus();
     
     // 用户评论查询
     Page<Comment> findByUserId(Integer userId, Pageable pageable);
     
     // 父评论查询
     List<Comment> findByParentId(Long parentId);
+
+    // 楼层树：一页根评论，以及一批父评论各自最早的 limit 条直接回复
+    Page<Comment> findByMovieIdAndParentIdIsNull(Integer movieId, Pageable pageable);
+
+    // 窗口函数只读 idx_comment_parent_time 覆盖索引编号，回表只取保留的行
+    @Query(value = "SELECT c.* FROM comment c JOIN (" +
+            "SELECT id, ROW_NUMBER() OVER (PARTITION BY parent_id ORDER BY create_time, id) AS rn " +
+            "FROM comment WHERE parent_id IN (:parentIds)) r ON r.id = c.id " +
+            "WHERE r.rn <= :limit ORDER BY c.parent_id, c.create_time, c.id", nativeQuery = true)
+    List<Comment> findFirstRepliesByParentIdIn(@Param("parentIds") Collection<Long> parentIds, @Param("limit") int limit);
+
+    // 每个父评论的直接回复数，返回 {parentId, count}
+    @Query("SELECT c.parentId, COUNT(c) FROM Comment c WHERE c.parentId IN :parentIds GROUP BY c.parentId")
+    List<Object[]> countRepliesByParentIdIn(@Param("parentIds") Collection<Long> parentIds);
+    
+    // 游标分页查询：按 (create_time, id) 或 (like_count, id) 定位，不做 count
+    @Query("SELECT c FROM Comment c WHERE c.movieId = :movieId AND " +
+           "(c.createTime < :createTime OR (c.createTime = :createTime AND c.id < :id)) " +
+           "ORDER BY c.createTime DESC, c.id DESC")
+    List<Comment> findByMovieIdAfterCreateTime(@Param("movieId") Integer movieId,
+                                               @Param("createTime") LocalDateTime createTime,
+                                               @Param("id") Integer id,
+                                               Pageable pageable);
+
+    @Query("SELECT c FROM Comment c WHERE c.movieId = :movieId AND " +
+           "(c.likeCount < :likeCount OR (c.likeCount = :likeCount AND c.id < :id)) " +
+           "ORDER BY c.likeCount DESC, c.id DESC")
+    List<Comment> findByMovieIdAfterLikeCount(@Param("movieId") Integer movieId,
+                                              @Param("likeCount") Integer likeCount,
+                                              @Param("id") Integer id,
+                                              Pageable pageable);
+
+    @Query("SELECT c FROM Comment c WHERE " +
+           "(:status IS NULL OR c.status = :status) AND " +
+           "(:keyword IS NULL OR :keyword = '' OR c.content LIKE %:keyword%) AND " +
+           "(c.createTime < :createTime OR (c.createTime = :createTime AND c.id < :id)) " +
+           "ORDER BY c.createTime DESC, c.id DESC")
+    List<Comment> findByStatusAndKeywordAfterCreateTime(@Param("status") Integer status,
+                                                        @Param("keyword") String keyword,
+                                                        @Param("createTime") LocalDateTime createTime,
+                                                        @Param("id") Integer id,
+                                                        Pageable pageable);
+
+    @Query("SELECT c FROM Comment c WHERE " +
+           "(:status IS NULL OR c.status = :status) AND " +
+           "(:keyword IS NULL OR :keyword = '' OR c.content LIKE %:keyword%) AND " +
+           "(c.likeCount < :likeCount OR (c.likeCount = :likeCount AND c.id < :id)) " +
+           "ORDER BY c.likeCount DESC, c.id DESC")
+    List<Comment> findByStatusAndKeywordAfterLikeCount(@Param("status") Integer status,
+                                                       @Param("keyword") String keyword,
+                                                       @Param("likeCount") Integer likeCount,
+                                                       @Param("id") Integer id,
+                                                       Pageable pageable);
+    
+    // 批量审核/删除：按 ID 集合做集合操作
+    // 加行锁读取（SELECT ... FOR UPDATE），需在事务中调用；并发的相同操作排队执行，后到的看到的是已修改的数据
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Comment c WHERE c.id IN :ids")
+    List<Comment> findByIdInForUpdate(@Param("ids") Collection<Integer> ids);
+
+    // 每行为 {id, status, movieId, rating}，用于维护状态计数和评分分布
+    @Query("SELECT c.id, c.status, c.movieId, c.rating FROM Comment c WHERE c.id IN :ids")
+    List<Object[]> findStateByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Comment c SET c.status = :status, c.updateTime = :updateTime WHERE c.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Integer> ids,
+                           @Param("status") Integer status,
+                           @Param("updateTime") LocalDateTime updateTime);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
     
     // 详情查询（包含关联信息）
     @Query("SELECT c FROM Comment c WHERE c.id = :id")
     Optional<Comment> findByIdWithDetails(@Param("id") Long id);
+
+    // 点赞/点踩只需要票数，按主键取两列，不加载评论实体
+    @Query("SELECT new com.edu.bcu.dto.CommentVoteDTO(c.id, c.likeCount, c.dislikeCount) FROM Comment c WHERE c.id = :id")
+    Optional<CommentVoteDTO> findVotesById(@Param("id") Long id);
 }
\ No newline at end of file
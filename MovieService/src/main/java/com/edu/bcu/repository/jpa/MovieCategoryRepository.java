@@ -1,11 +1,17 @@
 package com.edu.bcu.repository.jpa;
 
 import com.edu.bcu.entity.MovieCategory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface MovieCategoryRepository extends JpaRepository<MovieCategory, Long> {
     List<MovieCategory> findByMovieId(Long movieId);
     List<MovieCategory> findByCategoryId(Integer categoryId);
+
+    // 分类位图索引按主键分批读取：id, movieId, categoryId
+    @Query("SELECT mc.id, mc.movieId, mc.categoryId FROM MovieCategory mc WHERE mc.id > :id ORDER BY mc.id")
+    List<Object[]> findIndexRowsAfter(Long id, Pageable pageable);
 }
\ No newline at end of file
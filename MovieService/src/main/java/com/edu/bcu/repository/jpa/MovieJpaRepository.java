@@ -1,22 +1,60 @@
 package com.edu.bcu.repository.jpa;
 
+import com.edu.bcu.dto.MovieCardDTO;
 import com.edu.bcu.entity.Movie;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MovieJpaRepository extends JpaRepository<Movie, Long> {
-    @Query("SELECT m FROM Movie m WHERE m.genres LIKE %:category%")
+    // 通过 movie_category 关联表按分类名称查询
+    @Query("SELECT m FROM Movie m WHERE m.id IN (SELECT mc.movieId FROM MovieCategory mc JOIN Category c ON c.id = mc.categoryId WHERE c.name = :category)")
     List<Movie> findByCategory(String category);
 
+    @Query("SELECT m FROM Movie m WHERE m.id IN (SELECT mc.movieId FROM MovieCategory mc WHERE mc.categoryId = :categoryId)")
+    List<Movie> findByCategoryId(Integer categoryId);
+
     List<Movie> findByIsHotOrderByRatingDesc(Integer isHot);
 
     List<Movie> findByIsRecommendedOrderByCreateTimeDesc(Integer isRecommended);
 
+    // 榜单快照使用的 top-N 查询
+    List<Movie> findByIsHotOrderByRatingDesc(Integer isHot, Pageable pageable);
+
+    List<Movie> findByIsRecommendedOrderByCreateTimeDesc(Integer isRecommended, Pageable pageable);
+
+    List<Movie> findAllByOrderByCreateTimeDesc(Pageable pageable);
+
     @Query("SELECT m FROM Movie m ORDER BY m.createTime DESC")
     List<Movie> findByCreatTime();
 
     @Query("SELECT m FROM Movie m WHERE m.title LIKE %:keyword% OR m.description LIKE %:keyword% OR m.director LIKE %:keyword% OR m.actors LIKE %:keyword%")
-    List<Movie> searchByKeyword(String keyword);
-}
\ No newline at end of file
+    Page<Movie> searchByKeyword(String keyword, Pageable pageable);
+
+    // 按主键分批全量读取，用于构建内存索引
+    List<Movie> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // 标题联想只需要的列：id, title, originalTitle, posterUrl, rating, ratingCount
+    @Query("SELECT m.id, m.title, m.originalTitle, m.posterUrl, m.rating, m.ratingCount FROM Movie m WHERE m.id > :id ORDER BY m.id")
+    List<Object[]> findTypeaheadRowsAfter(Long id, Pageable pageable);
+
+    // 分类位图索引只需要的列：id, isVip, status, rating, createTime
+    @Query("SELECT m.id, m.isVip, m.status, m.rating, m.createTime FROM Movie m WHERE m.id > :id ORDER BY m.id")
+    List<Object[]> findIndexRowsAfter(Long id, Pageable pageable);
+
+    // 列表页卡片：一次查询只取卡片需要的列
+    String CARD_SELECT = "SELECT new com.edu.bcu.dto.MovieCardDTO(m.id, m.title, m.posterUrl, m.rating, m.runtime, m.isVip) FROM Movie m ";
+
+    @Query(value = CARD_SELECT, countQuery = "SELECT COUNT(m) FROM Movie m")
+    Page<MovieCardDTO> findAllCards(Pageable pageable);
+
+    @Query(CARD_SELECT + "WHERE m.id IN (SELECT mc.movieId FROM MovieCategory mc WHERE mc.categoryId = :categoryId)")
+    List<MovieCardDTO> findCardsByCategoryId(Integer categoryId);
+
+    @Query(CARD_SELECT + "WHERE m.id IN :ids")
+    List<MovieCardDTO> findCardsByIdIn(Collection<Long> ids);
+}
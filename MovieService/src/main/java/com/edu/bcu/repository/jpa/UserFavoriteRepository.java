@@ -1,7 +1,10 @@
 package com.edu.bcu.repository.jpa;
 
+import com.edu.bcu.dto.MovieCardDTO;
 import com.edu.bcu.entity.UserFavorite;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -11,4 +14,12 @@ public interface UserFavoriteRepository extends JpaRepository<UserFavorite, Long
     boolean existsByUserIdAndMovieId(Long userId, Long movieId);
 
     void deleteByUserIdAndMovieId(Long userId, Long movieId);
-}
\ No newline at end of file
+
+    @Query("SELECT f.movieId FROM UserFavorite f WHERE f.userId = :userId")
+    List<Long> findMovieIdsByUserId(@Param("userId") Long userId);
+
+    // 收藏列表：与 movie 联表，只取卡片需要的列，最近收藏的在前
+    @Query("SELECT new com.edu.bcu.dto.MovieCardDTO(m.id, m.title, m.posterUrl, m.rating, m.runtime, m.isVip) " +
+            "FROM UserFavorite f JOIN Movie m ON m.id = f.movieId WHERE f.userId = :userId ORDER BY f.createTime DESC, f.id DESC")
+    List<MovieCardDTO> findCardsByUserId(@Param("userId") Long userId);
+}
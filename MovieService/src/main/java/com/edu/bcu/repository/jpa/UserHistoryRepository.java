@@ -1,11 +1,14 @@
 package com.edu.bcu.repository.jpa;
 
+import com.edu.bcu.dto.HistoryMovieDTO;
+import com.edu.bcu.dto.HistoryMovieDetailDTO;
 import com.edu.bcu.entity.UserHistory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -35,4 +38,28 @@ public interface UserHistoryRepository extends JpaRepository<UserHistory, Long>
             LocalDateTime endTime,
             Pageable pageable
     );
+
+    // 观看历史列表：一次联表查询，只取列表需要的电影字段
+    String FEED_SELECT = "SELECT new com.edu.bcu.dto.HistoryMovieDTO(" +
+            "m.id, m.title, m.posterUrl, m.rating, m.runtime, m.isVip, " +
+            "h.playTime, h.progress, h.createTime, h.updateTime) " +
+            "FROM UserHistory h JOIN Movie m ON m.id = h.movieId ";
+
+    // 不分页的观看历史返回完整电影，与电影实体一起在一次联表查询中取出
+    @Query("SELECT new com.edu.bcu.dto.HistoryMovieDetailDTO(m, h.playTime, h.progress, h.createTime, h.updateTime) " +
+            "FROM UserHistory h JOIN Movie m ON m.id = h.movieId WHERE h.userId = :userId ORDER BY h.updateTime DESC")
+    List<HistoryMovieDetailDTO> findDetailsByUserId(@Param("userId") Long userId);
+
+    @Query(value = FEED_SELECT + "WHERE h.userId = :userId ORDER BY h.updateTime DESC",
+            countQuery = "SELECT COUNT(h) FROM UserHistory h WHERE h.userId = :userId")
+    Page<HistoryMovieDTO> findFeedPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = FEED_SELECT + "WHERE h.userId = :userId AND h.createTime BETWEEN :startTime AND :endTime " +
+            "ORDER BY h.createTime DESC",
+            countQuery = "SELECT COUNT(h) FROM UserHistory h WHERE h.userId = :userId " +
+                    "AND h.createTime BETWEEN :startTime AND :endTime")
+    Page<HistoryMovieDTO> findFeedPageByUserIdAndCreateTimeBetween(@Param("userId") Long userId,
+                                                                   @Param("startTime") LocalDateTime startTime,
+                                                                   @Param("endTime") LocalDateTime endTime,
+                                                                   Pageable pageable);
 } 
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.edu.bcu.repository.jpa;
 import com.edu.bcu.entity.VipMovieViewCount;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Map;
@@ -17,6 +18,11 @@ public interface VipMovieViewCountRepository extends JpaRepository<VipMovieViewC
             "ORDER BY totalViewCount DESC")
     List<Object[]> getMovieViewCountsOrderByDesc();
 
+    // 观看次数前 limit 名的电影，每行为 {movieId, 总观看次数}
+    @Query(value = "SELECT movie_id, SUM(view_count) AS total_view_count FROM vip_movie_view_count " +
+            "GROUP BY movie_id ORDER BY total_view_count DESC LIMIT :limit", nativeQuery = true)
+    List<Object[]> findTopMovieViewCounts(@Param("limit") int limit);
+
     @Query("SELECT SUM(mvc.viewCount) FROM VipMovieViewCount mvc WHERE mvc.movieId = :movieId")
     Integer getTotalViewCountByMovieId(Integer movieId);
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.util.AhoCorasick;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 评论违禁词过滤
+ * 词库为 UTF-8 文本文件，每行一个词，# 开头的行为注释；由词库构建 Aho-Corasick 自动机，一次扫描即可判断是否包含任一违禁词。
+ * 定时检查文件修改时间，变化时在后台构建新的自动机再整体替换，正在进行的匹配继续使用旧的自动机；
+ * 文件不存在时告警一次并继续使用已加载的词库（从未加载过时为空，不拦截任何评论）
+ */
+@Slf4j
+@Component
+public class BannedWordFilter {
+    private final Path dictionaryFile;
+
+    private volatile AhoCorasick automaton = AhoCorasick.build(List.of());
+    private volatile long loadedFileTime;
+    // 已对文件缺失告警过，文件恢复后重置
+    private volatile boolean missingWarned;
+
+    public BannedWordFilter(@Value("${movie.banned-words.file:data/banned-words.txt}") String dictionaryFile) {
+        this.dictionaryFile = Paths.get(dictionaryFile);
+    }
+
+    /**
+     * 文本是否包含违禁词
+     */
+    public boolean matches(String text) {
+        return automaton.matches(text);
+    }
+
+    /**
+     * 文本中第一个出现的违禁词，没有时返回 null
+     */
+    public String findFirst(String text) {
+        if (text == null) {
+            return null;
+        }
+        AhoCorasick current = automaton;
+        int index = current.find(text);
+        return index >= 0 ? current.pattern(index) : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        reloadIfChanged();
+    }
+
+    @Scheduled(fixedDelayString = "${movie.banned-words.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        try {
+            if (!Files.exists(dictionaryFile)) {
+                if (!missingWarned) {
+                    missingWarned = true;
+                    log.warn("违禁词词库文件不存在：{}，当前词库 {} 个词", dictionaryFile.toAbsolutePath(),
+                            automaton.patternCount());
+                }
+                return;
+            }
+            missingWarned = false;
+            if (Files.getLastModifiedTime(dictionaryFile).toMillis() != loadedFileTime) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.error("检查违禁词词库失败：{}", dictionaryFile, e);
+        }
+    }
+
+    /**
+     * 立即重新加载词库
+     * @return 加载的违禁词数
+     */
+    public synchronized int reload() throws IOException {
+        long fileTime = Files.getLastModifiedTime(dictionaryFile).toMillis();
+        long start = System.currentTimeMillis();
+        List<String> words = new ArrayList<>();
+        for (String line : Files.readAllLines(dictionaryFile, StandardCharsets.UTF_8)) {
+            String word = line.replace("\uFEFF", "").trim();
+            if (!word.isEmpty() && !word.startsWith("#")) {
+                words.add(word);
+            }
+        }
+        AhoCorasick next = AhoCorasick.build(words);
+        automaton = next;
+        loadedFileTime = fileTime;
+        log.info("已加载违禁词词库：{} 个词，{} 个状态，耗时 {} ms",
+                next.patternCount(), next.stateCount(), System.currentTimeMillis() - start);
+        return next.patternCount();
+    }
+}
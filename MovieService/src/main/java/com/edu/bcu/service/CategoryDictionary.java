@@ -0,0 +1,96 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.entity.Category;
+import com.edu.bcu.repository.jpa.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 分类名称 -> 分类 ID 字典
+ * 分类由分类服务维护，这里定时用 COUNT/MAX(update_time) 检查分类表是否变化，变化时整体重新加载；
+ * 解析到未知名称时也会检查一次，但每个检查间隔内最多一次，反复出现的未知名称不会每次都查询分类表
+ */
+@Slf4j
+@Component
+public class CategoryDictionary {
+    private final CategoryRepository categoryRepository;
+    private final MovieCatalogVersion catalogVersion;
+    private final long checkIntervalMillis;
+
+    private volatile Map<String, Long> idsByName;
+    private volatile long lastCheckTime;
+    // 上次加载时分类表的 {数量, 最近更新时间}
+    private volatile Object[] loadedVersion;
+
+    public CategoryDictionary(CategoryRepository categoryRepository, MovieCatalogVersion catalogVersion,
+                              @Value("${movie.category-dictionary.check-interval-ms:30000}") long checkIntervalMillis) {
+        this.categoryRepository = categoryRepository;
+        this.catalogVersion = catalogVersion;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    /**
+     * 批量解析分类名称，不存在的名称不出现在结果中
+     * @return 名称 -> 分类 ID，按传入顺序
+     */
+    public Map<String, Long> resolve(Collection<String> names) {
+        Map<String, Long> dictionary = idsByName;
+        if (dictionary == null) {
+            refresh();
+            dictionary = idsByName;
+        } else if (!dictionary.keySet().containsAll(names)
+                && System.currentTimeMillis() - lastCheckTime >= checkIntervalMillis) {
+            // 有未知名称时确认一次分类表是否有新增
+            refreshIfStale();
+            dictionary = idsByName;
+        }
+        Map<String, Long> resolved = new LinkedHashMap<>();
+        for (String name : names) {
+            Long id = dictionary.get(name);
+            if (id != null) {
+                resolved.put(name, id);
+            }
+        }
+        return resolved;
+    }
+
+    // 等锁期间其他线程可能已经检查过
+    private synchronized void refreshIfStale() {
+        if (System.currentTimeMillis() - lastCheckTime >= checkIntervalMillis) {
+            refresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${movie.category-dictionary.check-interval-ms:30000}")
+    public synchronized void refresh() {
+        lastCheckTime = System.currentTimeMillis();
+        Object[] version = categoryRepository.findVersion().get(0);
+        if (idsByName != null && loadedVersion != null
+                && Objects.equals(version[0], loadedVersion[0]) && Objects.equals(version[1], loadedVersion[1])) {
+            return;
+        }
+        List<Category> categories = categoryRepository.findAll();
+        Map<String, Long> dictionary = new HashMap<>(categories.size() * 2);
+        for (Category category : categories) {
+            if (category.getName() != null) {
+                dictionary.put(category.getName(), category.getId());
+            }
+        }
+        if (idsByName != null) {
+            // 分类被其他服务修改，电影的分类列表随之变化
+            catalogVersion.bump();
+        }
+        idsByName = dictionary;
+        loadedVersion = version;
+        log.info("分类字典已加载：{} 个分类", dictionary.size());
+    }
+}
@@ -0,0 +1,46 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.entity.Comment;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 评论游标，格式为 base64url("排序|排序值|id")
+ */
+record CommentCursor(String sort, LocalDateTime createTime, Integer likeCount, Integer id) {
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    static CommentCursor of(Comment comment, String sort) {
+        return new CommentCursor(sort, comment.getCreateTime(),
+                comment.getLikeCount() == null ? 0 : comment.getLikeCount(), comment.getId());
+    }
+
+    static CommentCursor decode(String cursor, String sort) {
+        if (!StringUtils.hasText(cursor)) {
+            // 第一页：从最大值开始
+            return new CommentCursor(sort, MAX_TIME, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !parts[0].equals(sort)) {
+                throw new IllegalArgumentException("游标与排序方式不匹配");
+            }
+            Integer id = Integer.valueOf(parts[2]);
+            return sort.equals("hot") ?
+                    new CommentCursor(sort, null, Integer.valueOf(parts[1]), id) :
+                    new CommentCursor(sort, LocalDateTime.parse(parts[1]), null, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的游标", e);
+        }
+    }
+
+    String encode() {
+        String value = sort.equals("hot") ? String.valueOf(likeCount) : createTime.toString();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sort + "|" + value + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
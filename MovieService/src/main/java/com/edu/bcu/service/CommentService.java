@@ -1,125 +1,293 @@
 package com.edu.bcu.service;
 
 import com.edu.bcu.dto.CommentStatisticsDTO;
+import com.edu.bcu.dto.CommentThreadDTO;
+import com.edu.bcu.dto.CommentVoteDTO;
+import com.edu.bcu.dto.CursorPageDTO;
+import com.edu.bcu.dto.RatingDistributionDTO;
 import com.edu.bcu.entity.Comment;
-import com.edu.bcu.entity.Movie;
 import com.edu.bcu.repository.jpa.CommentRepository;
-import com.edu.bcu.service.MovieService;
+import com.edu.bcu.util.IntObjectHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+@Slf4j
 @Service
 public class CommentService {
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_THREAD_DEPTH = 5;
+    private static final int MAX_THREAD_REPLIES = 50;
+
     private final CommentRepository commentRepository;
-    private final MovieService movieService;
+    private final RatingAggregator ratingAggregator;
+    private final CommentVoteBuffer commentVoteBuffer;
+    private final CommentStatusCounters statusCounters;
+    private final RatingHistogramService ratingHistogram;
+    private final BannedWordFilter bannedWordFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchChunkSize;
 
-    public CommentService(CommentRepository commentRepository, MovieService movieService) {
+    public CommentService(CommentRepository commentRepository, RatingAggregator ratingAggregator, CommentVoteBuffer commentVoteBuffer,
+                          CommentStatusCounters statusCounters, RatingHistogramService ratingHistogram,
+                          BannedWordFilter bannedWordFilter, TransactionTemplate transactionTemplate,
+                          @Value("${movie.comment.batch-chunk-size:500}") int batchChunkSize) {
         this.commentRepository = commentRepository;
-        this.movieService = movieService;
+        this.ratingAggregator = ratingAggregator;
+        this.commentVoteBuffer = commentVoteBuffer;
+        this.statusCounters = statusCounters;
+        this.ratingHistogram = ratingHistogram;
+        this.bannedWordFilter = bannedWordFilter;
+        this.transactionTemplate = transactionTemplate;
+        this.batchChunkSize = batchChunkSize;
     }
 
+    @Transactional
     public Comment saveComment(Comment comment) {
+        screenBannedWords(comment);
         Comment savedComment = commentRepository.save(comment);
+        // 评分分布与评论在同一事务中写入，写入失败时评论一起回滚
+        ratingHistogram.onCreated(savedComment.getMovieId(), savedComment.getRating());
 
-        // 更新电影的 rating_count 和 rating
-        Long movieId = (long) savedComment.getMovieId();
-        Movie movie = movieService.getMovieById(movieId)
-                .orElseThrow(() -> new RuntimeException("电影不存在"));
-
-        if (movie.getRatingCount() == null) {
-            movie.setRatingCount(1);
-            movie.setRating((double) savedComment.getRating());
-        } else {
-            int newRatingCount = movie.getRatingCount() + 1;
-            double newRating = (movie.getRating() * movie.getRatingCount() + savedComment.getRating()) / newRatingCount;
-            movie.setRatingCount(newRatingCount);
-            movie.setRating((double) Math.round(newRating * 10) / 10); // 保留1位小数
+        // 更新电影的 rating_sum 和 rating_count，rating 由两者派生
+        if (savedComment.getRating() != null) {
+            ratingAggregator.addRating((long) savedComment.getMovieId(), savedComment.getRating());
         }
-        movieService.updateMovie(movieId, movie);
+        statusCounters.onCreated(savedComment.getStatus());
 
         return savedComment;
     }
 
+    /**
+     * 分页获取电影评论
+     * sort=hot 时按已落库的点赞数分页，再叠加未落库的点赞只在本页内重新排序；
+     * 跨页的顺序以落库的点赞数为准，最多滞后一个落库间隔
+     */
     public Page<Comment> getCommentsByMovieId(Long movieId, int page, int size, String sort) {
         // 确保页码不小于1
         page = Math.max(1, page);
-        Sort sortBy = sort.equals("hot") ?
+        boolean hot = sort.equals("hot");
+        Sort sortBy = hot ?
+                Sort.by("likeCount").descending() :
+                Sort.by("createTime").descending();
+        Page<Comment> comments = commentRepository.findByMovieId(movieId, PageRequest.of(page - 1, size, sortBy));
+        comments.getContent().forEach(this::applyPendingVotes);
+        if (!hot) {
+            return comments;
+        }
+
+        // 叠加未落库的点赞后按最新点赞数重新排序本页
+        List<Comment> content = new ArrayList<>(comments.getContent());
+        content.sort(Comparator.comparing(Comment::getLikeCount).reversed());
+        return new PageImpl<>(content, comments.getPageable(), comments.getTotalElements());
+    }
+
+    /**
+     * 游标分页获取电影评论，深翻页时也只扫描一页数据
+     */
+    public CursorPageDTO<Comment> getCommentsByMovieIdAfter(Long movieId, String cursor, int size, String sort) {
+        String cursorSort = sort.equals("hot") ? "hot" : "time";
+        size = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        CommentCursor after = CommentCursor.decode(cursor, cursorSort);
+        PageRequest limit = PageRequest.of(0, size + 1);
+
+        List<Comment> rows = cursorSort.equals("hot") ?
+                commentRepository.findByMovieIdAfterLikeCount(movieId.intValue(), after.likeCount(), after.id(), limit) :
+                commentRepository.findByMovieIdAfterCreateTime(movieId.intValue(), after.createTime(), after.id(), limit);
+        return toCursorPage(rows, size, cursorSort);
+    }
+
+    /**
+     * 分页获取电影的评论楼层
+     * 根评论一次查询，每展开一层用 parent_id IN (...) 查询整层的回复数和每条评论最早的若干条回复，查询次数只与层数有关
+     * @param depth 最多展开的回复层数
+     * @param replies 每条评论最多返回的直接回复数
+     */
+    public Page<CommentThreadDTO> getCommentThreads(Long movieId, int page, int size, String sort, int depth, int replies) {
+        page = Math.max(1, page);
+        size = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        depth = Math.max(0, Math.min(depth, MAX_THREAD_DEPTH));
+        replies = Math.max(0, Math.min(replies, MAX_THREAD_REPLIES));
+        boolean hot = sort.equals("hot");
+        Sort sortBy = hot ?
                 Sort.by("likeCount").descending() :
                 Sort.by("createTime").descending();
-        return commentRepository.findByMovieId(movieId, PageRequest.of(page - 1, size, sortBy));
+        Page<Comment> roots = commentRepository.findByMovieIdAndParentIdIsNull(movieId.intValue(), PageRequest.of(page - 1, size, sortBy));
+
+        List<Comment> rootComments = new ArrayList<>(roots.getContent());
+        rootComments.forEach(this::applyPendingVotes);
+        if (hot) {
+            rootComments.sort(Comparator.comparing(Comment::getLikeCount).reversed());
+        }
+
+        // commentId -> 楼层节点
+        IntObjectHashMap<CommentThreadDTO> nodes = new IntObjectHashMap<>(rootComments.size() * (replies + 1));
+        List<CommentThreadDTO> threads = new ArrayList<>(rootComments.size());
+        List<Long> frontier = new ArrayList<>(rootComments.size());
+        for (Comment root : rootComments) {
+            CommentThreadDTO node = new CommentThreadDTO(root);
+            threads.add(node);
+            nodes.put(root.getId(), node);
+            frontier.add(root.getId().longValue());
+        }
+
+        for (int level = 0; level < depth && !frontier.isEmpty(); level++) {
+            List<Long> next = new ArrayList<>();
+            for (int from = 0; from < frontier.size(); from += batchChunkSize) {
+                List<Long> parentIds = frontier.subList(from, Math.min(from + batchChunkSize, frontier.size()));
+                parentIds.forEach(id -> nodes.get(id.intValue()).setReplyCount(0));
+                for (Object[] row : commentRepository.countRepliesByParentIdIn(parentIds)) {
+                    CommentThreadDTO parent = nodes.get(((Number) row[0]).intValue());
+                    parent.setReplyCount(((Number) row[1]).intValue());
+                    parent.setHasMoreReplies(parent.getReplyCount() > replies);
+                }
+                if (replies == 0) {
+                    continue;
+                }
+                for (Comment reply : commentRepository.findFirstRepliesByParentIdIn(parentIds, replies)) {
+                    CommentThreadDTO node = new CommentThreadDTO(applyPendingVotes(reply));
+                    nodes.get(reply.getParentId().intValue()).getReplies().add(node);
+                    nodes.put(reply.getId(), node);
+                    next.add(reply.getId().longValue());
+                }
+            }
+            frontier = next;
+        }
+
+        return new PageImpl<>(threads, roots.getPageable(), roots.getTotalElements());
+    }
+
+    /**
+     * 获取电影的评分分布和贝叶斯加权分
+     */
+    public RatingDistributionDTO getRatingDistribution(Long movieId) {
+        return ratingHistogram.getDistribution(movieId);
     }
 
+    @Transactional
     public void deleteComment(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
 
-        // 更新电影的 rating_count 和 rating
-        Long movieId = (long) comment.getMovieId();
-        Movie movie = movieService.getMovieById(movieId)
-                .orElseThrow(() -> new RuntimeException("电影不存在"));
-
-        int newRatingCount = movie.getRatingCount() - 1;
-        if (newRatingCount > 0) {
-            double newRating = (movie.getRating() * movie.getRatingCount() - comment.getRating()) / newRatingCount;
-            movie.setRatingCount(newRatingCount);
-            movie.setRating((double) Math.round(newRating * 10) / 10); // 保留1位小数
-        } else {
-            movie.setRatingCount(0);
-            movie.setRating(0.0);
+        // 以实际删除的行数为准，并发删除同一评论时只撤销一次
+        if (commentRepository.deleteByIdIn(List.of(comment.getId())) == 0) {
+            throw new IllegalArgumentException("评论不存在");
         }
-        movieService.updateMovie(movieId, movie);
+        ratingHistogram.onDeleted(comment.getMovieId(), comment.getRating());
 
-        commentRepository.deleteById(commentId);
+        // 撤销该评论对电影评分的贡献
+        if (comment.getRating() != null) {
+            ratingAggregator.removeRating((long) comment.getMovieId(), comment.getRating());
+        }
+        statusCounters.onDeleted(comment.getStatus());
     }
 
+    @Transactional
     public Comment updateComment(Comment comment) {
-        return commentRepository.save(comment);
+        // {id, status, movieId, rating}
+        Object[] old = null;
+        if (comment.getId() != null) {
+            List<Object[]> rows = commentRepository.findStateByIdIn(List.of(comment.getId()));
+            old = rows.isEmpty() ? null : rows.get(0);
+        }
+
+        screenBannedWords(comment);
+        Comment savedComment = commentRepository.save(comment);
+        if (old != null) {
+            ratingHistogram.onChanged((Integer) old[2], (Integer) old[3], savedComment.getMovieId(), savedComment.getRating());
+            statusCounters.onStatusChanged((Integer) old[1], savedComment.getStatus());
+        } else {
+            ratingHistogram.onCreated(savedComment.getMovieId(), savedComment.getRating());
+            statusCounters.onCreated(savedComment.getStatus());
+        }
+        return savedComment;
+    }
+
+    /**
+     * 内容包含违禁词的评论转为待审核
+     */
+    private void screenBannedWords(Comment comment) {
+        String word = bannedWordFilter.findFirst(comment.getContent());
+        if (word != null) {
+            log.info("评论包含违禁词，转为待审核，评论 ID: {}, 用户 ID: {}, 违禁词: {}", comment.getId(), comment.getUserId(), word);
+            comment.setStatus(0);
+        }
     }
 
     // 点赞服务
-    @Transactional
-    public Comment likeComment(Long commentId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
-        comment.like();
-        return commentRepository.save(comment);
+    public CommentVoteDTO likeComment(Long commentId) {
+        CommentVoteDTO votes = findVotes(commentId);
+        commentVoteBuffer.like(votes.getId());
+        return applyPendingVotes(votes);
     }
 
     // 取消点赞服务
-    @Transactional
-    public Comment unlikeComment(Long commentId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
-        comment.unlike();
-        return commentRepository.save(comment);
+    public CommentVoteDTO unlikeComment(Long commentId) {
+        CommentVoteDTO votes = findVotes(commentId);
+        commentVoteBuffer.unlike(votes.getId());
+        return applyPendingVotes(votes);
     }
 
     // 点踩服务
-    @Transactional
-    public Comment dislikeComment(Long commentId) {
-        Comment comment = commentRepository.findById(commentId)
-                .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
-        comment.dislike();
-        return commentRepository.save(comment);
+    public CommentVoteDTO dislikeComment(Long commentId) {
+        CommentVoteDTO votes = findVotes(commentId);
+        commentVoteBuffer.dislike(votes.getId());
+        return applyPendingVotes(votes);
     }
 
     // 取消点踩服务
-    @Transactional
-    public Comment undislikeComment(Long commentId) {
-        Comment comment = commentRepository.findById(commentId)
+    public CommentVoteDTO undislikeComment(Long commentId) {
+        CommentVoteDTO votes = findVotes(commentId);
+        commentVoteBuffer.undislike(votes.getId());
+        return applyPendingVotes(votes);
+    }
+
+    private CommentVoteDTO findVotes(Long commentId) {
+        return commentRepository.findVotesById(commentId)
                 .orElseThrow(() -> new IllegalArgumentException("评论不存在"));
-        comment.undislike();
-        return commentRepository.save(comment);
+    }
+
+    /**
+     * 把缓冲区中尚未落库的点赞/点踩增量叠加到评论上（like_count 等列不可更新，不会被写回）
+     */
+    private Comment applyPendingVotes(Comment comment) {
+        comment.setLikeCount(withPendingLikes(comment.getId(), comment.getLikeCount()));
+        comment.setDislikeCount(withPendingDislikes(comment.getId(), comment.getDislikeCount()));
+        return comment;
+    }
+
+    private CommentVoteDTO applyPendingVotes(CommentVoteDTO votes) {
+        votes.setLikeCount(withPendingLikes(votes.getId(), votes.getLikeCount()));
+        votes.setDislikeCount(withPendingDislikes(votes.getId(), votes.getDislikeCount()));
+        return votes;
+    }
+
+    private int withPendingLikes(Integer commentId, Integer likeCount) {
+        return (int) Math.max(0, (likeCount == null ? 0 : likeCount) + commentVoteBuffer.getPendingLikes(commentId));
+    }
+
+    private int withPendingDislikes(Integer commentId, Integer dislikeCount) {
+        return (int) Math.max(0, (dislikeCount == null ? 0 : dislikeCount) + commentVoteBuffer.getPendingDislikes(commentId));
     }
 
     // ==================== 管理端功能 ====================
@@ -157,18 +325,55 @@ public class CommentService {
         }
     }
     
+    /**
+     * 游标分页获取管理端评论列表
+     */
+    public CursorPageDTO<Comment> getAllCommentsForAdminAfter(String keyword, String status, String cursor, int size, String sort) {
+        String cursorSort = sort.equals("hot") ? "hot" : "time";
+        size = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        CommentCursor after = CommentCursor.decode(cursor, cursorSort);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        Integer statusCode = convertStatusToCode(status);
+
+        List<Comment> rows = cursorSort.equals("hot") ?
+                commentRepository.findByStatusAndKeywordAfterLikeCount(statusCode, keyword, after.likeCount(), after.id(), limit) :
+                commentRepository.findByStatusAndKeywordAfterCreateTime(statusCode, keyword, after.createTime(), after.id(), limit);
+        return toCursorPage(rows, size, cursorSort);
+    }
+
     /**
      * 获取评论统计信息
      */
     public CommentStatisticsDTO getCommentStatistics() {
-        Long total = commentRepository.countTotal();
-        Long pending = commentRepository.countByStatus(0);  // 待审核
-        Long approved = commentRepository.countByStatus(1); // 已通过
-        Long rejected = commentRepository.countByStatus(2); // 已拒绝
-        
-        return new CommentStatisticsDTO(total, pending, approved, rejected);
+        // 计数器随写操作增量维护，并定时与数据库校正
+        return statusCounters.snapshot();
     }
     
+    /**
+     * 由评论表全量重建评分分布
+     * @return 重建的电影数
+     */
+    public int backfillRatingDistribution() {
+        return ratingHistogram.backfill();
+    }
+
+    /**
+     * 立即重新加载违禁词词库，失败时继续使用已加载的词库
+     * @return 加载的违禁词数
+     * @throws IllegalStateException 词库文件不存在或无法读取
+     */
+    public int reloadBannedWords() {
+        try {
+            return bannedWordFilter.reload();
+        } catch (NoSuchFileException e) {
+            log.warn("违禁词词库文件不存在：{}", e.getFile());
+            throw new IllegalStateException("违禁词词库文件不存在：" + e.getFile());
+        } catch (IOException e) {
+            log.error("加载违禁词词库失败", e);
+            throw new IllegalStateException("加载违禁词词库失败：" + e.getMessage());
+        }
+    }
+
     /**
      * 审核评论
      */
@@ -182,45 +387,136 @@ public class CommentService {
             throw new IllegalArgumentException("无效的审核状态");
         }
         
+        Integer oldStatus = comment.getStatus();
         comment.setStatus(statusCode);
         comment.setUpdateTime(LocalDateTime.now());
         
-        return commentRepository.save(comment);
+        Comment savedComment = commentRepository.save(comment);
+        statusCounters.onStatusChanged(oldStatus, statusCode);
+        return savedComment;
     }
     
     /**
      * 批量审核评论
+     * 每块在一个事务中加行锁读取审核前的状态，再执行 UPDATE ... WHERE id IN (...)，
+     * 提交后按实际修改的行更新计数，返回失败的评论 ID
      */
-    @Transactional
-    public void batchAuditComments(List<Long> ids, String status) {
+    public List<Long> batchAuditComments(List<Long> ids, String status) {
         Integer statusCode = convertStatusToCode(status);
         if (statusCode == null) {
             throw new IllegalArgumentException("无效的审核状态");
         }
         
-        for (Long id : ids) {
-            Comment comment = commentRepository.findById(id).orElse(null);
-            if (comment != null) {
-                comment.setStatus(statusCode);
-                comment.setUpdateTime(LocalDateTime.now());
-                commentRepository.save(comment);
+        List<Long> failedIds = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (List<Integer> chunk : toIdChunks(ids)) {
+            List<CommentState> audited;
+            try {
+                audited = transactionTemplate.execute(tx -> {
+                    List<CommentState> found = lockStates(chunk);
+                    if (!found.isEmpty()) {
+                        commentRepository.updateStatusByIdIn(found.stream().map(CommentState::id).toList(), statusCode, now);
+                    }
+                    return found;
+                });
+            } catch (Exception e) {
+                // 记录日志，但不中断批量操作
+                log.error("批量审核评论失败，ID: {}", chunk, e);
+                chunk.forEach(id -> failedIds.add(id.longValue()));
+                continue;
+            }
+
+            for (CommentState state : audited) {
+                statusCounters.onStatusChanged(state.status(), statusCode);
             }
+            addMissing(chunk, audited, failedIds, "审核");
         }
+        return failedIds;
     }
     
     /**
      * 批量删除评论
+     * 每块在一个事务中加行锁读取后执行 DELETE ... WHERE id IN (...)，并在同一事务中撤销评分分布，并发删除同一批评论时只有一方删到数据；
+     * 提交后按实际删除的行撤销计数，最后按电影合并撤销评分，返回失败的评论 ID
      */
-    @Transactional
-    public void batchDeleteComments(List<Long> ids) {
-        for (Long id : ids) {
+    public List<Long> batchDeleteComments(List<Long> ids) {
+        List<Long> failedIds = new ArrayList<>();
+        // movieId -> {评分总和, 评分条数}
+        Map<Long, long[]> ratingDeltas = new HashMap<>();
+        for (List<Integer> chunk : toIdChunks(ids)) {
+            List<CommentState> deleted;
             try {
-                deleteComment(id);
+                deleted = transactionTemplate.execute(tx -> {
+                    List<CommentState> found = lockStates(chunk);
+                    if (!found.isEmpty()) {
+                        commentRepository.deleteByIdIn(found.stream().map(CommentState::id).toList());
+                        ratingHistogram.applyAll(found.stream()
+                                .map(state -> new int[]{state.movieId() == null ? 0 : state.movieId(),
+                                        state.rating() == null ? 0 : state.rating(), -1})
+                                .toList());
+                    }
+                    return found;
+                });
             } catch (Exception e) {
                 // 记录日志，但不中断批量操作
-                System.err.println("删除评论失败，ID: " + id + ", 错误: " + e.getMessage());
+                log.error("批量删除评论失败，ID: {}", chunk, e);
+                chunk.forEach(id -> failedIds.add(id.longValue()));
+                continue;
+            }
+
+            for (CommentState state : deleted) {
+                statusCounters.onDeleted(state.status());
+                if (state.rating() != null) {
+                    long[] delta = ratingDeltas.computeIfAbsent((long) state.movieId(), k -> new long[2]);
+                    delta[0] += state.rating();
+                    delta[1]++;
+                }
             }
+            addMissing(chunk, deleted, failedIds, "删除");
         }
+
+        // 每部受影响的电影只撤销一次评分
+        ratingDeltas.forEach((movieId, delta) -> ratingAggregator.removeRatings(movieId, delta[0], (int) delta[1]));
+        return failedIds;
+    }
+
+    // 加行锁读取评论修改前的状态
+    private List<CommentState> lockStates(List<Integer> ids) {
+        List<CommentState> states = new ArrayList<>(ids.size());
+        for (Comment comment : commentRepository.findByIdInForUpdate(ids)) {
+            states.add(new CommentState(comment.getId(), comment.getStatus(), comment.getMovieId(), comment.getRating()));
+        }
+        return states;
+    }
+
+    // 本块中不存在（或已被并发删除）的评论计为失败
+    private void addMissing(List<Integer> chunk, List<CommentState> found, List<Long> failedIds, String action) {
+        Set<Integer> foundIds = new HashSet<>();
+        found.forEach(state -> foundIds.add(state.id()));
+        for (Integer id : chunk) {
+            if (!foundIds.contains(id)) {
+                log.warn("{}评论失败，ID: {}, 错误: 评论不存在", action, id);
+                failedIds.add(id.longValue());
+            }
+        }
+    }
+
+    /**
+     * 评论修改前的状态，用于维护计数
+     */
+    private record CommentState(Integer id, Integer status, Integer movieId, Integer rating) {
+    }
+
+    /**
+     * 去重并按块切分评论 ID
+     */
+    private List<List<Integer>> toIdChunks(List<Long> ids) {
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids.stream().map(Long::intValue).toList()));
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += batchChunkSize) {
+            chunks.add(distinct.subList(from, Math.min(from + batchChunkSize, distinct.size())));
+        }
+        return chunks;
     }
     
     /**
@@ -247,6 +543,17 @@ public class CommentService {
         // commentRepository.save(comment);
     }
     
+    /**
+     * 截取一页并生成下一页游标，游标取自持久化的值，再叠加未落库的点赞增量
+     */
+    private CursorPageDTO<Comment> toCursorPage(List<Comment> rows, int size, String sort) {
+        boolean hasMore = rows.size() > size;
+        List<Comment> content = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        String nextCursor = hasMore ? CommentCursor.of(content.get(content.size() - 1), sort).encode() : null;
+        content.forEach(this::applyPendingVotes);
+        return new CursorPageDTO<>(content, nextCursor, hasMore);
+    }
+
     /**
      * 转换状态字符串为状态码
      */
@@ -0,0 +1,108 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.dto.CommentStatisticsDTO;
+import com.edu.bcu.repository.jpa.CommentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 评论审核状态计数器
+ * 总数及待审核/已通过/已拒绝数量常驻内存，随评论的新增、审核、删除增量调整，
+ * 定时用一条 GROUP BY status 查询校正漂移
+ */
+@Slf4j
+@Component
+public class CommentStatusCounters {
+    // 状态码 0 待审核、1 已通过、2 已拒绝，其余状态只计入总数
+    private static final int STATUS_SLOTS = 3;
+
+    private final CommentRepository commentRepository;
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder[] byStatus = new LongAdder[STATUS_SLOTS];
+    private volatile boolean reconciled;
+
+    public CommentStatusCounters(CommentRepository commentRepository) {
+        this.commentRepository = commentRepository;
+        for (int i = 0; i < STATUS_SLOTS; i++) {
+            byStatus[i] = new LongAdder();
+        }
+    }
+
+    public void onCreated(Integer status) {
+        total.increment();
+        adjust(status, 1);
+    }
+
+    public void onDeleted(Integer status) {
+        total.decrement();
+        adjust(status, -1);
+    }
+
+    public void onStatusChanged(Integer from, Integer to) {
+        if (Objects.equals(from, to)) {
+            return;
+        }
+        adjust(from, -1);
+        adjust(to, 1);
+    }
+
+    /**
+     * 当前统计结果，首次校正完成前直接查库
+     */
+    public CommentStatisticsDTO snapshot() {
+        if (!reconciled) {
+            reconcile();
+        }
+        return new CommentStatisticsDTO(total.sum(), byStatus[0].sum(), byStatus[1].sum(), byStatus[2].sum());
+    }
+
+    /**
+     * 用数据库实际数量校正计数器
+     * 只补上查询前后的差值，查询期间到达的增量不会被覆盖
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${movie.comment.stats-reconcile-interval-ms:300000}",
+            initialDelayString = "${movie.comment.stats-reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        long totalBefore = total.sum();
+        long[] before = new long[STATUS_SLOTS];
+        for (int i = 0; i < STATUS_SLOTS; i++) {
+            before[i] = byStatus[i].sum();
+        }
+
+        List<Object[]> rows = commentRepository.countGroupByStatus();
+        long dbTotal = 0;
+        long[] db = new long[STATUS_SLOTS];
+        for (Object[] row : rows) {
+            long count = ((Number) row[1]).longValue();
+            dbTotal += count;
+            Integer status = (Integer) row[0];
+            if (status != null && status >= 0 && status < STATUS_SLOTS) {
+                db[status] = count;
+            }
+        }
+
+        if (reconciled && dbTotal != totalBefore) {
+            log.info("评论统计校正：总数 {} -> {}", totalBefore, dbTotal);
+        }
+        total.add(dbTotal - totalBefore);
+        for (int i = 0; i < STATUS_SLOTS; i++) {
+            byStatus[i].add(db[i] - before[i]);
+        }
+        reconciled = true;
+    }
+
+    private void adjust(Integer status, int delta) {
+        if (status != null && status >= 0 && status < STATUS_SLOTS) {
+            byStatus[status].add(delta);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.repository.jdbc.CommentVoteJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 评论点赞/点踩计数缓冲区
+ * 每条评论一组 LongAdder 计数单元，请求线程只做内存累加，
+ * 定时用一条多行 UPDATE ... CASE 把增量合并写入 comment 表
+ */
+@Slf4j
+@Component
+public class CommentVoteBuffer {
+    private final CommentVoteJdbcRepository voteJdbcRepository;
+    private final boolean synchronous;
+    private final int batchSize;
+
+    private final ConcurrentHashMap<Integer, VoteCell> cells = new ConcurrentHashMap<>();
+    // 正在落库的增量，落库完成前仍计入读取结果
+    private volatile Map<Integer, long[]> inflight = Collections.emptyMap();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public CommentVoteBuffer(CommentVoteJdbcRepository voteJdbcRepository,
+                             @Value("${movie.comment-vote.synchronous:false}") boolean synchronous,
+                             @Value("${movie.comment-vote.batch-size:500}") int batchSize) {
+        this.voteJdbcRepository = voteJdbcRepository;
+        this.synchronous = synchronous;
+        this.batchSize = batchSize;
+    }
+
+    public void like(Integer commentId) {
+        add(commentId, 1, 0);
+    }
+
+    public void unlike(Integer commentId) {
+        add(commentId, -1, 0);
+    }
+
+    public void dislike(Integer commentId) {
+        add(commentId, 0, 1);
+    }
+
+    public void undislike(Integer commentId) {
+        add(commentId, 0, -1);
+    }
+
+    /**
+     * 尚未落库的点赞增量
+     */
+    public long getPendingLikes(Integer commentId) {
+        VoteCell cell = cells.get(commentId);
+        long[] flushing = inflight.get(commentId);
+        return (cell == null ? 0 : cell.likes.sum()) + (flushing == null ? 0 : flushing[0]);
+    }
+
+    /**
+     * 尚未落库的点踩增量
+     */
+    public long getPendingDislikes(Integer commentId) {
+        VoteCell cell = cells.get(commentId);
+        long[] flushing = inflight.get(commentId);
+        return (cell == null ? 0 : cell.dislikes.sum()) + (flushing == null ? 0 : flushing[1]);
+    }
+
+    /**
+     * 启动时把旧数据中为 NULL 的点赞/点踩数补成 0
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillNullCounts() {
+        int rows = voteJdbcRepository.fillNullCounts();
+        if (rows > 0) {
+            log.info("已为 {} 条评论补齐点赞/点踩数", rows);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${movie.comment-vote.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            doFlush();
+        } catch (Exception e) {
+            log.error("评论点赞数落库失败", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("应用关闭，落库剩余点赞/点踩增量：{} 条评论", cells.size());
+        flush();
+    }
+
+    private void add(Integer commentId, long likeDelta, long dislikeDelta) {
+        VoteCell cell = cells.computeIfAbsent(commentId, k -> new VoteCell());
+        cell.add(likeDelta, dislikeDelta);
+        if (cell.retired) {
+            // 计数单元已被落库线程回收，把可能未被取走的增量转移到新单元
+            long likes = cell.likes.sumThenReset();
+            long dislikes = cell.dislikes.sumThenReset();
+            if (likes != 0 || dislikes != 0) {
+                cells.computeIfAbsent(commentId, k -> new VoteCell()).add(likes, dislikes);
+            }
+        }
+        if (synchronous) {
+            flush();
+        }
+    }
+
+    private void doFlush() {
+        if (cells.isEmpty()) {
+            return;
+        }
+        Map<Integer, long[]> deltas = new HashMap<>();
+        for (Map.Entry<Integer, VoteCell> entry : cells.entrySet()) {
+            VoteCell cell = entry.getValue();
+            long likes = cell.likes.sumThenReset();
+            long dislikes = cell.dislikes.sumThenReset();
+            if (likes == 0 && dislikes == 0) {
+                // 空闲单元回收，回收后再取一次，避免与并发累加竞争丢失增量
+                cell.retired = true;
+                cells.remove(entry.getKey(), cell);
+                likes = cell.likes.sumThenReset();
+                dislikes = cell.dislikes.sumThenReset();
+                if (likes == 0 && dislikes == 0) {
+                    continue;
+                }
+            }
+            deltas.put(entry.getKey(), new long[]{likes, dislikes});
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<long[]> rows = new ArrayList<>(deltas.size());
+        for (Map.Entry<Integer, long[]> entry : deltas.entrySet()) {
+            rows.add(new long[]{entry.getKey(), entry.getValue()[0], entry.getValue()[1]});
+        }
+        inflight = deltas;
+        try {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                try {
+                    voteJdbcRepository.applyVoteDeltas(rows.subList(from, Math.min(from + batchSize, rows.size())));
+                } catch (RuntimeException e) {
+                    // 落库失败，本批及之后的增量放回计数单元等待下次重试
+                    for (long[] row : rows.subList(from, rows.size())) {
+                        cells.computeIfAbsent((int) row[0], k -> new VoteCell()).add(row[1], row[2]);
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            inflight = Collections.emptyMap();
+        }
+    }
+
+    private static final class VoteCell {
+        final LongAdder likes = new LongAdder();
+        final LongAdder dislikes = new LongAdder();
+        volatile boolean retired;
+
+        void add(long likeDelta, long dislikeDelta) {
+            if (likeDelta != 0) {
+                likes.add(likeDelta);
+            }
+            if (dislikeDelta != 0) {
+                dislikes.add(dislikeDelta);
+            }
+        }
+    }
+}
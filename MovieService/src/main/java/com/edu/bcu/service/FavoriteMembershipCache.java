@@ -0,0 +1,148 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.repository.jpa.UserFavoriteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户收藏集合缓存
+ * 每个用户的收藏电影 ID 存为有序 int 数组，首次查询时加载，按 LRU 限制用户数，超过 TTL 后重新加载
+ * （其他实例修改的收藏在 TTL 内生效）；本实例的收藏/取消收藏在事务提交后直接更新数组。
+ * 缓存可能过期，只用于读取展示，写入前的判重需查库
+ */
+@Component
+public class FavoriteMembershipCache {
+    private final UserFavoriteRepository favoriteRepository;
+    private final int maxUsers;
+    private final long ttlMillis;
+
+    // 访问顺序的 LinkedHashMap，最久未访问的用户在最前面
+    private final LinkedHashMap<Long, CachedFavorites> entries;
+    // 每次修改递增，加载期间发生过修改的结果不写入缓存，避免旧数据回填
+    private long generation;
+
+    public FavoriteMembershipCache(UserFavoriteRepository favoriteRepository,
+                                   @Value("${movie.favorite-cache.max-users:10000}") int maxUsers,
+                                   @Value("${movie.favorite-cache.ttl-ms:60000}") long ttlMillis) {
+        this.favoriteRepository = favoriteRepository;
+        this.maxUsers = maxUsers;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedFavorites> eldest) {
+                return size() > FavoriteMembershipCache.this.maxUsers;
+            }
+        };
+    }
+
+    public boolean contains(Long userId, Long movieId) {
+        return isIntId(movieId) && Arrays.binarySearch(movieIds(userId), movieId.intValue()) >= 0;
+    }
+
+    /**
+     * 批量判断是否已收藏
+     * @return 与 movieIds 一一对应
+     */
+    public boolean[] containsAll(Long userId, List<Long> movieIds) {
+        int[] favorites = movieIds(userId);
+        boolean[] result = new boolean[movieIds.size()];
+        for (int i = 0; i < result.length; i++) {
+            Long movieId = movieIds.get(i);
+            result[i] = isIntId(movieId) && Arrays.binarySearch(favorites, movieId.intValue()) >= 0;
+        }
+        return result;
+    }
+
+    public void onAdded(Long userId, Long movieId) {
+        if (isIntId(movieId)) {
+            afterCommit(() -> update(userId, movieId.intValue(), true));
+        }
+    }
+
+    public void onRemoved(Long userId, Long movieId) {
+        if (isIntId(movieId)) {
+            afterCommit(() -> update(userId, movieId.intValue(), false));
+        }
+    }
+
+    // 超出 int 范围的 ID 不可能存在于收藏中，直接视为未收藏
+    private static boolean isIntId(Long movieId) {
+        return movieId != null && movieId >= Integer.MIN_VALUE && movieId <= Integer.MAX_VALUE;
+    }
+
+    private int[] movieIds(Long userId) {
+        long loadGeneration;
+        synchronized (this) {
+            CachedFavorites cached = entries.get(userId);
+            if (cached != null) {
+                if (cached.expiresAt() > System.currentTimeMillis()) {
+                    return cached.movieIds();
+                }
+                entries.remove(userId);
+            }
+            loadGeneration = generation;
+        }
+
+        List<Long> loaded = favoriteRepository.findMovieIdsByUserId(userId);
+        int[] movieIds = new int[loaded.size()];
+        for (int i = 0; i < movieIds.length; i++) {
+            movieIds[i] = Math.toIntExact(loaded.get(i));
+        }
+        Arrays.sort(movieIds);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                entries.put(userId, new CachedFavorites(movieIds, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return movieIds;
+    }
+
+    // 数组不可变，修改时复制一份，读取方拿到的旧数组不受影响
+    private synchronized void update(Long userId, int movieId, boolean favorite) {
+        generation++;
+        CachedFavorites cached = entries.get(userId);
+        if (cached == null) {
+            return;
+        }
+        int[] movieIds = cached.movieIds();
+        int pos = Arrays.binarySearch(movieIds, movieId);
+        int[] updated;
+        if (favorite && pos < 0) {
+            pos = -pos - 1;
+            updated = new int[movieIds.length + 1];
+            System.arraycopy(movieIds, 0, updated, 0, pos);
+            updated[pos] = movieId;
+            System.arraycopy(movieIds, pos, updated, pos + 1, movieIds.length - pos);
+        } else if (!favorite && pos >= 0) {
+            updated = new int[movieIds.length - 1];
+            System.arraycopy(movieIds, 0, updated, 0, pos);
+            System.arraycopy(movieIds, pos + 1, updated, pos, movieIds.length - pos - 1);
+        } else {
+            return;
+        }
+        entries.put(userId, new CachedFavorites(updated, cached.expiresAt()));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record CachedFavorites(int[] movieIds, long expiresAt) {
+    }
+}
@@ -0,0 +1,272 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.entity.UserHistory;
+import com.edu.bcu.repository.jdbc.UserHistoryJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 观看进度心跳合并缓冲区
+ * 播放过程中的多次心跳按 (userId, movieId) 只保留最新的 progress/playTime，
+ * 定时批量 upsert 到 user_history。
+ * 某批违反约束（如用户或电影已被删除）时逐条重试，永久失败的记录丢弃；
+ * 落库持续失败时，缓冲区达到 max-dirty-entries 的两倍后拒绝新的 (用户, 电影)，内存有上限
+ */
+@Slf4j
+@Component
+public class HistoryWriteBuffer {
+    private final UserHistoryJdbcRepository historyJdbcRepository;
+    private final int maxDirtyEntries;
+    private final int batchSize;
+    private final boolean drainOnShutdown;
+
+    private final ConcurrentHashMap<Long, PendingHistory> dirty = new ConcurrentHashMap<>();
+    // 正在落库的记录，落库完成前仍可读到
+    private volatile Map<Long, PendingHistory> inflight = Collections.emptyMap();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter heartbeatCounter;
+    private final Counter flushedRowCounter;
+
+    public HistoryWriteBuffer(UserHistoryJdbcRepository historyJdbcRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${movie.history.max-dirty-entries:20000}") int maxDirtyEntries,
+                              @Value("${movie.history.batch-size:500}") int batchSize,
+                              @Value("${movie.history.drain-on-shutdown:true}") boolean drainOnShutdown) {
+        this.historyJdbcRepository = historyJdbcRepository;
+        this.maxDirtyEntries = maxDirtyEntries;
+        this.batchSize = batchSize;
+        this.drainOnShutdown = drainOnShutdown;
+
+        this.heartbeatCounter = Counter.builder("movie.history.heartbeats")
+                .description("收到的观看进度心跳数")
+                .register(meterRegistry);
+        this.flushedRowCounter = Counter.builder("movie.history.flushed.rows")
+                .description("实际写入 user_history 的行数")
+                .register(meterRegistry);
+        Gauge.builder("movie.history.dirty.entries", dirty, Map::size)
+                .description("尚未落库的观看记录数")
+                .register(meterRegistry);
+        Gauge.builder("movie.history.coalescing.ratio", this, HistoryWriteBuffer::coalescingRatio)
+                .description("心跳数 / 落库行数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次心跳，progress/playTime 为 null 时保留原值
+     * @return 缓冲区中合并后的观看记录（尚未落库，id 为空；缓冲区中没有的字段为 0，需要时由调用方叠加数据库记录）
+     */
+    public UserHistory record(Long userId, Long movieId, Integer progress, Integer playTime) {
+        heartbeatCounter.increment();
+        if (dirty.size() >= maxDirtyEntries * 2 && !dirty.containsKey(key(userId, movieId))) {
+            throw new IllegalStateException("观看记录暂时无法保存，请稍后重试");
+        }
+        PendingHistory merged = dirty.merge(key(userId, movieId),
+                new PendingHistory(progress, playTime, LocalDateTime.now()), PendingHistory::mergeWith);
+
+        if (dirty.size() >= maxDirtyEntries && flushLock.tryLock()) {
+            try {
+                doFlush();
+            } catch (Exception e) {
+                log.error("观看记录落库失败", e);
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        return merged.toHistory(userId, movieId);
+    }
+
+    /**
+     * 该记录是否已在缓冲区中（已在缓冲区的记录之前已校验过用户和电影）
+     */
+    public boolean isBuffered(Long userId, Long movieId) {
+        long key = key(userId, movieId);
+        return dirty.containsKey(key) || inflight.containsKey(key);
+    }
+
+    /**
+     * 把缓冲区中的最新进度叠加到数据库记录上，数据库中没有时直接由缓冲区构造
+     */
+    public UserHistory overlay(Long userId, Long movieId, UserHistory persisted) {
+        long key = key(userId, movieId);
+        PendingHistory pending = dirty.get(key);
+        PendingHistory flushing = inflight.get(key);
+        if (flushing != null) {
+            pending = pending == null ? flushing : flushing.mergeWith(pending);
+        }
+        if (pending == null) {
+            return persisted;
+        }
+        if (persisted == null) {
+            return pending.toHistory(userId, movieId);
+        }
+        if (pending.progress() != null) {
+            persisted.setProgress(pending.progress());
+        }
+        if (pending.playTime() != null) {
+            persisted.setPlayTime(pending.playTime());
+        }
+        persisted.setUpdateTime(pending.updateTime());
+        return persisted;
+    }
+
+    /**
+     * 丢弃某条记录的未落库心跳（删除观看记录前调用，避免落库后记录复活）
+     */
+    public void discard(Long userId, Long movieId) {
+        flushLock.lock();
+        try {
+            dirty.remove(key(userId, movieId));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 丢弃某个用户的全部未落库心跳
+     */
+    public void discardUser(Long userId) {
+        flushLock.lock();
+        try {
+            dirty.keySet().removeIf(key -> (key >>> 32) == userId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${movie.history.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            doFlush();
+        } catch (Exception e) {
+            log.error("观看记录落库失败", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!drainOnShutdown) {
+            log.warn("应用关闭，丢弃未落库的观看记录：{} 条", dirty.size());
+            return;
+        }
+        log.info("应用关闭，落库剩余观看记录：{} 条", dirty.size());
+        flush();
+    }
+
+    private void doFlush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<Long, PendingHistory> taken = new HashMap<>();
+        for (Long key : dirty.keySet()) {
+            PendingHistory pending = dirty.remove(key);
+            if (pending != null) {
+                taken.put(key, pending);
+            }
+        }
+        inflight = taken;
+        try {
+            List<Map.Entry<Long, PendingHistory>> entries = new ArrayList<>(taken.entrySet());
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                List<Map.Entry<Long, PendingHistory>> chunk = entries.subList(from, Math.min(from + batchSize, entries.size()));
+                try {
+                    historyJdbcRepository.batchUpsert(toRows(chunk));
+                    flushedRowCounter.increment(chunk.size());
+                } catch (DataIntegrityViolationException e) {
+                    // upsert 是幂等的，部分写入后逐条重试也不会出错
+                    writeRows(entries, from, chunk.size());
+                } catch (RuntimeException e) {
+                    // 落库失败，本批及之后的记录放回缓冲区
+                    requeue(entries.subList(from, entries.size()));
+                    throw e;
+                }
+            }
+        } finally {
+            inflight = Collections.emptyMap();
+        }
+    }
+
+    // 逐条写入一批记录，违反约束的记录丢弃，遇到其他错误时把剩余记录放回缓冲区
+    private void writeRows(List<Map.Entry<Long, PendingHistory>> entries, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            Map.Entry<Long, PendingHistory> entry = entries.get(i);
+            try {
+                historyJdbcRepository.batchUpsert(toRows(List.of(entry)));
+                flushedRowCounter.increment();
+            } catch (DataIntegrityViolationException e) {
+                log.warn("丢弃无法落库的观看记录，用户 ID: {}, 电影 ID: {}, 错误: {}",
+                        entry.getKey() >>> 32, entry.getKey() & 0xFFFFFFFFL, e.getMostSpecificCause().getMessage());
+            } catch (RuntimeException e) {
+                requeue(entries.subList(i, entries.size()));
+                throw e;
+            }
+        }
+    }
+
+    // 期间到达的新心跳优先
+    private void requeue(List<Map.Entry<Long, PendingHistory>> entries) {
+        for (Map.Entry<Long, PendingHistory> entry : entries) {
+            dirty.merge(entry.getKey(), entry.getValue(), (newer, older) -> older.mergeWith(newer));
+        }
+    }
+
+    private double coalescingRatio() {
+        double flushed = flushedRowCounter.count();
+        return flushed == 0 ? 0 : heartbeatCounter.count() / flushed;
+    }
+
+    private static List<Object[]> toRows(List<Map.Entry<Long, PendingHistory>> entries) {
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (Map.Entry<Long, PendingHistory> entry : entries) {
+            long key = entry.getKey();
+            PendingHistory pending = entry.getValue();
+            rows.add(new Object[]{key >>> 32, key & 0xFFFFFFFFL,
+                    pending.playTime(), pending.progress(), Timestamp.valueOf(pending.updateTime())});
+        }
+        return rows;
+    }
+
+    private static long key(Long userId, Long movieId) {
+        return (userId << 32) | (movieId & 0xFFFFFFFFL);
+    }
+
+    private record PendingHistory(Integer progress, Integer playTime, LocalDateTime updateTime) {
+        // 用较新的心跳覆盖，较新的心跳中为 null 的字段沿用旧值
+        PendingHistory mergeWith(PendingHistory newer) {
+            return new PendingHistory(
+                    newer.progress != null ? newer.progress : progress,
+                    newer.playTime != null ? newer.playTime : playTime,
+                    newer.updateTime);
+        }
+
+        UserHistory toHistory(Long userId, Long movieId) {
+            UserHistory history = new UserHistory();
+            history.setUserId(userId);
+            history.setMovieId(movieId);
+            history.setProgress(progress != null ? progress : 0);
+            history.setPlayTime(playTime != null ? playTime : 0);
+            history.setUpdateTime(updateTime);
+            return history;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.entity.Movie;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 电影详情本地缓存
+ * 按 LRU 限制条数，条目超过 TTL 后重新加载；失效由 MovieChangeNotifier 驱动。
+ * 未命中的加载按电影 ID 合并：同一电影正在加载时，后来的请求等待同一次加载的结果
+ */
+@Component
+public class MovieCache {
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // 访问顺序的 LinkedHashMap，最久未访问的条目在最前面
+    private final LinkedHashMap<Long, CachedMovie> entries;
+    // 正在加载的电影，失效时移除，之后的请求重新加载；
+    // 加载完成时只有仍登记在这里的结果写入缓存，加载期间被失效的电影不回填旧数据，其他电影不受影响
+    private final ConcurrentHashMap<Long, CompletableFuture<Optional<Movie>>> loading = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sizeEvictionCounter;
+    private final Counter expiredEvictionCounter;
+    private final Counter invalidationCounter;
+    private final Counter coalescedCounter;
+
+    public MovieCache(MeterRegistry meterRegistry,
+                      @Value("${movie.cache.max-size:1000}") int maxSize,
+                      @Value("${movie.cache.ttl-ms:60000}") long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedMovie> eldest) {
+                if (size() > MovieCache.this.maxSize) {
+                    sizeEvictionCounter.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hitCounter = Counter.builder("movie.cache.requests").tag("result", "hit")
+                .description("电影缓存命中次数").register(meterRegistry);
+        this.missCounter = Counter.builder("movie.cache.requests").tag("result", "miss")
+                .description("电影缓存未命中次数").register(meterRegistry);
+        this.sizeEvictionCounter = Counter.builder("movie.cache.evictions").tag("cause", "size")
+                .description("超过容量被淘汰的条目数").register(meterRegistry);
+        this.expiredEvictionCounter = Counter.builder("movie.cache.evictions").tag("cause", "expired")
+                .description("超过 TTL 被淘汰的条目数").register(meterRegistry);
+        this.invalidationCounter = Counter.builder("movie.cache.evictions").tag("cause", "invalidated")
+                .description("因电影变更被失效的条目数").register(meterRegistry);
+        this.coalescedCounter = Counter.builder("movie.cache.coalesced")
+                .description("等待其他请求正在进行的加载而未查询数据库的次数").register(meterRegistry);
+        Gauge.builder("movie.cache.size", this, MovieCache::size)
+                .description("电影缓存当前条目数").register(meterRegistry);
+    }
+
+    /**
+     * 读取电影，未命中时用 loader 加载并缓存（不缓存不存在的电影）
+     */
+    public Optional<Movie> get(Long movieId, Function<Long, Optional<Movie>> loader) {
+        Map<Long, Movie> movies = getAll(List.of(movieId), ids -> loader.apply(movieId).map(List::of).orElse(List.of()));
+        return Optional.ofNullable(movies.get(movieId));
+    }
+
+    /**
+     * 批量读取电影，未命中且没有正在加载的电影用 batchLoader 一次加载
+     * @return movieId -> 电影，不存在的电影不在结果中
+     */
+    public Map<Long, Movie> getAll(Collection<Long> movieIds, Function<Collection<Long>, List<Movie>> batchLoader) {
+        Map<Long, Movie> result = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Long movieId : new LinkedHashSet<>(movieIds)) {
+                CachedMovie cached = entries.get(movieId);
+                if (cached != null) {
+                    if (cached.expiresAt() > now) {
+                        hitCounter.increment();
+                        result.put(movieId, cached.movie());
+                        continue;
+                    }
+                    entries.remove(movieId);
+                    expiredEvictionCounter.increment();
+                }
+                missCounter.increment();
+                misses.add(movieId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        // 认领没有在加载的电影，其余等待已有的加载
+        Map<Long, CompletableFuture<Optional<Movie>>> owned = new LinkedHashMap<>();
+        Map<Long, CompletableFuture<Optional<Movie>>> awaited = new HashMap<>();
+        for (Long movieId : misses) {
+            CompletableFuture<Optional<Movie>> future = new CompletableFuture<>();
+            CompletableFuture<Optional<Movie>> existing = loading.putIfAbsent(movieId, future);
+            if (existing == null) {
+                owned.put(movieId, future);
+            } else {
+                coalescedCounter.increment();
+                awaited.put(movieId, existing);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            try {
+                Map<Long, Movie> loaded = new HashMap<>();
+                for (Movie movie : batchLoader.apply(owned.keySet())) {
+                    loaded.put(movie.getId(), movie);
+                }
+                synchronized (this) {
+                    long expiresAt = System.currentTimeMillis() + ttlMillis;
+                    loaded.forEach((id, movie) -> {
+                        if (loading.get(id) == owned.get(id)) {
+                            entries.put(id, new CachedMovie(movie, expiresAt));
+                        }
+                    });
+                }
+                owned.forEach((id, future) -> {
+                    Movie movie = loaded.get(id);
+                    if (movie != null) {
+                        result.put(id, movie);
+                    }
+                    future.complete(Optional.ofNullable(movie));
+                });
+            } catch (RuntimeException e) {
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                // 只移除自己登记的加载，失效后其他请求新登记的加载不受影响
+                owned.forEach((id, future) -> loading.remove(id, future));
+            }
+        }
+
+        for (Map.Entry<Long, CompletableFuture<Optional<Movie>>> entry : awaited.entrySet()) {
+            try {
+                entry.getValue().join().ifPresent(movie -> result.put(entry.getKey(), movie));
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return result;
+    }
+
+    public synchronized void invalidate(Long movieId) {
+        loading.remove(movieId);
+        if (entries.remove(movieId) != null) {
+            invalidationCounter.increment();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record CachedMovie(Movie movie, long expiresAt) {
+    }
+}
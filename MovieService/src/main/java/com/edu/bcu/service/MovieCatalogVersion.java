@@ -0,0 +1,43 @@
+package com.edu.bcu.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 电影目录版本号
+ * 本实例或其他实例（通过变更通知）修改电影、分类后递增，列表接口以此生成 ETag 和 Last-Modified，
+ * 版本未变时直接返回 304，不查询数据库。
+ * 版本号只在本实例内递增，ETag 带上实例启动时间，避免重启或多实例之间版本号相同而内容不同。
+ * 作为漏掉变更通知时的兜底，版本号至少每 catalog-max-age-ms 递增一次
+ */
+@Component
+public class MovieCatalogVersion {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    // 最近一次变更的时间，精确到秒（Last-Modified 的精度）
+    private volatile long lastModified = System.currentTimeMillis() / 1000 * 1000;
+
+    @Scheduled(initialDelayString = "${movie.cache.catalog-max-age-ms:300000}",
+            fixedDelayString = "${movie.cache.catalog-max-age-ms:300000}")
+    public void expire() {
+        bump();
+    }
+
+    public void bump() {
+        lastModified = System.currentTimeMillis() / 1000 * 1000;
+        version.incrementAndGet();
+    }
+
+    /**
+     * @param collection 列表名称，不同列表的 ETag 互不相同
+     */
+    public String eTag(String collection) {
+        return "\"" + collection + "-" + epoch + "-" + version.get() + "\"";
+    }
+
+    public long lastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,242 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.repository.jdbc.MovieCategoryJdbcRepository;
+import com.edu.bcu.repository.jpa.MovieCategoryRepository;
+import com.edu.bcu.repository.jpa.MovieJpaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分类位图索引
+ * 每个分类一个以电影 ID 为下标的位图，另有 VIP、状态位图和按评分/上架时间排好序的电影 ID 数组，
+ * 多分类的与/或/非组合、筛选、排序分页和分面计数都在内存中完成；
+ * 快照在后台线程构建后整体替换，电影或分类变更提交后标记重建；首次构建完成前查询回退到数据库
+ */
+@Slf4j
+@Component
+public class MovieCategoryIndex {
+    private static final BitSet EMPTY = new BitSet();
+
+    private final MovieJpaRepository movieJpaRepository;
+    private final MovieCategoryRepository movieCategoryRepository;
+    private final MovieCategoryJdbcRepository movieCategoryJdbcRepository;
+    private final int loadBatchSize;
+    private final long rebuildIntervalMillis;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean dirty = true;
+    private volatile long lastBuildTime;
+
+    public MovieCategoryIndex(MovieJpaRepository movieJpaRepository,
+                              MovieCategoryRepository movieCategoryRepository,
+                              MovieCategoryJdbcRepository movieCategoryJdbcRepository,
+                              @Value("${movie.search.load-batch-size:1000}") int loadBatchSize,
+                              @Value("${movie.category-index.rebuild-interval-ms:300000}") long rebuildIntervalMillis) {
+        this.movieJpaRepository = movieJpaRepository;
+        this.movieCategoryRepository = movieCategoryRepository;
+        this.movieCategoryJdbcRepository = movieCategoryJdbcRepository;
+        this.loadBatchSize = loadBatchSize;
+        this.rebuildIntervalMillis = rebuildIntervalMillis;
+    }
+
+    /**
+     * 电影或分类变更后调用，事务提交后才标记，下次检查时重建
+     */
+    public void markDirty() {
+        afterCommit(() -> dirty = true);
+    }
+
+    /**
+     * 按条件筛选电影
+     * @param include 需包含的分类，matchAll 为 true 时要求全部包含，否则包含任一即可；为空表示不限
+     * @param exclude 需排除的分类
+     * @param isVip 是否 VIP 电影，null 表示不限
+     * @param status 电影状态，null 表示不限
+     * @param sort rating 按评分降序，其余按上架时间降序
+     * 快照尚未构建时直接查询数据库，不在请求线程中构建索引
+     */
+    public Result query(Collection<Integer> include, boolean matchAll, Collection<Integer> exclude,
+                        Integer isVip, Integer status, String sort, int offset, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return queryDatabase(include, matchAll, exclude, isVip, status, sort, offset, limit);
+        }
+
+        BitSet selected = (BitSet) current.all.clone();
+        if (include != null && !include.isEmpty()) {
+            BitSet matched = null;
+            for (Integer categoryId : include) {
+                BitSet bits = current.byCategory.getOrDefault(categoryId, EMPTY);
+                if (matched == null) {
+                    matched = (BitSet) bits.clone();
+                } else if (matchAll) {
+                    matched.and(bits);
+                } else {
+                    matched.or(bits);
+                }
+            }
+            selected.and(matched);
+        }
+        if (exclude != null) {
+            for (Integer categoryId : exclude) {
+                selected.andNot(current.byCategory.getOrDefault(categoryId, EMPTY));
+            }
+        }
+        if (isVip != null) {
+            if (isVip == 1) {
+                selected.and(current.vip);
+            } else {
+                selected.andNot(current.vip);
+            }
+        }
+        if (status != null) {
+            selected.and(current.byStatus.getOrDefault(status, EMPTY));
+        }
+
+        // 分面：当前结果中每个分类的电影数
+        Map<Integer, Integer> facets = new LinkedHashMap<>();
+        for (Map.Entry<Integer, BitSet> entry : current.byCategory.entrySet()) {
+            BitSet bits = (BitSet) selected.clone();
+            bits.and(entry.getValue());
+            int count = bits.cardinality();
+            if (count > 0) {
+                facets.put(entry.getKey(), count);
+            }
+        }
+
+        int total = selected.cardinality();
+        int[] order = "rating".equals(sort) ? current.byRating : current.byRecency;
+        int to = Math.min(total, offset + limit);
+        long[] pageIds = new long[Math.max(0, to - offset)];
+        int seen = 0;
+        for (int i = 0; i < order.length && seen < to; i++) {
+            if (selected.get(order[i])) {
+                if (seen >= offset) {
+                    pageIds[seen - offset] = order[i];
+                }
+                seen++;
+            }
+        }
+        return new Result(total, pageIds, facets);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${movie.category-index.check-interval-ms:5000}")
+    public synchronized void refresh() {
+        if (snapshot != null && !dirty && System.currentTimeMillis() - lastBuildTime < rebuildIntervalMillis) {
+            return;
+        }
+        dirty = false;
+        try {
+            long start = System.currentTimeMillis();
+            snapshot = build();
+            lastBuildTime = System.currentTimeMillis();
+            log.info("分类位图索引构建完成：{} 部电影，{} 个分类，耗时 {} ms",
+                    snapshot.byRating.length, snapshot.byCategory.size(), lastBuildTime - start);
+        } catch (RuntimeException e) {
+            dirty = true;
+            log.error("分类位图索引构建失败", e);
+        }
+    }
+
+    private Result queryDatabase(Collection<Integer> include, boolean matchAll, Collection<Integer> exclude,
+                                 Integer isVip, Integer status, String sort, int offset, int limit) {
+        long total = movieCategoryJdbcRepository.countMatching(include, matchAll, exclude, isVip, status);
+        long[] pageIds = offset < total ?
+                movieCategoryJdbcRepository.findMatchingIds(include, matchAll, exclude, isVip, status,
+                        "rating".equals(sort), offset, limit) :
+                new long[0];
+        Map<Integer, Integer> facets = total > 0 ?
+                movieCategoryJdbcRepository.countMatchingByCategory(include, matchAll, exclude, isVip, status) :
+                new LinkedHashMap<>();
+        return new Result(total, pageIds, facets);
+    }
+
+    private Snapshot build() {
+        BitSet all = new BitSet();
+        BitSet vip = new BitSet();
+        Map<Integer, BitSet> byStatus = new HashMap<>();
+        List<MovieRow> movies = new ArrayList<>();
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = movieJpaRepository.findIndexRowsAfter(lastId, PageRequest.of(0, loadBatchSize));
+            for (Object[] row : batch) {
+                int movieId = Math.toIntExact((Long) row[0]);
+                all.set(movieId);
+                if (Integer.valueOf(1).equals(row[1])) {
+                    vip.set(movieId);
+                }
+                if (row[2] != null) {
+                    byStatus.computeIfAbsent((Integer) row[2], k -> new BitSet()).set(movieId);
+                }
+                double rating = row[3] == null ? 0 : ((Number) row[3]).doubleValue();
+                movies.add(new MovieRow(movieId, rating, (LocalDateTime) row[4]));
+                lastId = movieId;
+            }
+        } while (batch.size() == loadBatchSize);
+
+        Map<Integer, BitSet> byCategory = new HashMap<>();
+        lastId = 0;
+        do {
+            batch = movieCategoryRepository.findIndexRowsAfter(lastId, PageRequest.of(0, loadBatchSize));
+            for (Object[] row : batch) {
+                byCategory.computeIfAbsent((Integer) row[2], k -> new BitSet()).set((Integer) row[1]);
+                lastId = (Long) row[0];
+            }
+        } while (batch.size() == loadBatchSize);
+        // 指向已删除电影的关联不参与计数
+        byCategory.values().forEach(bits -> bits.and(all));
+
+        Comparator<MovieRow> newestFirst = Comparator.comparing(MovieRow::createTime,
+                Comparator.nullsLast(Comparator.reverseOrder()));
+        int[] byRating = movies.stream()
+                .sorted(Comparator.comparingDouble(MovieRow::rating).reversed().thenComparing(newestFirst))
+                .mapToInt(MovieRow::id).toArray();
+        int[] byRecency = movies.stream()
+                .sorted(newestFirst.thenComparing(Comparator.comparingInt(MovieRow::id).reversed()))
+                .mapToInt(MovieRow::id).toArray();
+
+        Map<Integer, BitSet> sortedCategories = new LinkedHashMap<>();
+        byCategory.keySet().stream().sorted().forEach(id -> sortedCategories.put(id, byCategory.get(id)));
+        return new Snapshot(all, vip, byStatus, sortedCategories, byRating, byRecency);
+    }
+
+    // 未提交的修改不触发重建，提交前重建会读到旧数据并清掉标记
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public record Result(long total, long[] movieIds, Map<Integer, Integer> facets) {
+    }
+
+    private record MovieRow(int id, double rating, LocalDateTime createTime) {
+    }
+
+    private record Snapshot(BitSet all, BitSet vip, Map<Integer, BitSet> byStatus, Map<Integer, BitSet> byCategory,
+                            int[] byRating, int[] byRecency) {
+    }
+}
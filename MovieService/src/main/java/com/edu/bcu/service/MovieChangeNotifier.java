@@ -0,0 +1,147 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.repository.jdbc.MovieChangeLogJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 电影变更通知
+ * 本实例修改电影后立即失效本地缓存，并写一条 movie_change_log；
+ * 各实例定时读取新的变更记录失效本地缓存，其他服务（如文件上传服务更新海报、分类服务修改电影分类关联）直接写该表即可；
+ * 失效缓存的同时递增目录版本号，使列表接口的 ETag 失效。
+ * 自增 id 在插入时分配、提交顺序可能不同，id 较小的变更可能在更大的 id 已被读取之后才提交，
+ * 因此每次轮询还会补读最近 overlap-seconds 秒内写入的变更，已处理过的按 id 去重
+ */
+@Slf4j
+@Component
+public class MovieChangeNotifier {
+    private static final int POLL_LIMIT = 1000;
+
+    private final MovieChangeLogJdbcRepository changeLogRepository;
+    private final MovieCache movieCache;
+    private final MovieCatalogVersion catalogVersion;
+    private final long retentionSeconds;
+    private final long overlapSeconds;
+
+    // 已处理的最大变更记录 ID，-1 表示尚未初始化
+    private volatile long lastSeenId = -1;
+    // 重叠窗口内已处理的变更 id -> 处理时间，按处理顺序排列，只由轮询线程访问
+    private final LinkedHashMap<Long, Long> processed = new LinkedHashMap<>();
+
+    public MovieChangeNotifier(MovieChangeLogJdbcRepository changeLogRepository,
+                               MovieCache movieCache,
+                               MovieCatalogVersion catalogVersion,
+                               @Value("${movie.cache.change-log-retention-seconds:3600}") long retentionSeconds,
+                               @Value("${movie.cache.change-log-overlap-seconds:60}") long overlapSeconds) {
+        this.changeLogRepository = changeLogRepository;
+        this.movieCache = movieCache;
+        this.catalogVersion = catalogVersion;
+        this.retentionSeconds = retentionSeconds;
+        this.overlapSeconds = overlapSeconds;
+    }
+
+    public void publish(Long movieId) {
+        publish(List.of(movieId));
+    }
+
+    /**
+     * 通知电影已变更，处于事务中时本地失效推迟到提交之后
+     */
+    public void publish(Collection<Long> movieIds) {
+        if (movieIds.isEmpty()) {
+            return;
+        }
+        try {
+            changeLogRepository.record(movieIds);
+        } catch (RuntimeException e) {
+            // 通知写入失败时其他实例依赖 TTL 过期，不影响本次修改
+            log.error("写入电影变更通知失败：{}", movieIds, e);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    movieIds.forEach(movieCache::invalidate);
+                    catalogVersion.bump();
+                }
+            });
+        } else {
+            movieIds.forEach(movieCache::invalidate);
+            catalogVersion.bump();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        lastSeenId = changeLogRepository.maxId();
+    }
+
+    @Scheduled(fixedDelayString = "${movie.cache.poll-interval-ms:1000}")
+    public synchronized void poll() {
+        if (lastSeenId < 0) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            boolean changed = false;
+            // 补读 id 已越过、但之后才提交的变更
+            for (long[] change : changeLogRepository.findRecent(overlapSeconds, lastSeenId)) {
+                changed |= apply(change, now);
+            }
+            List<long[]> changes;
+            do {
+                changes = changeLogRepository.findAfter(lastSeenId, POLL_LIMIT);
+                for (long[] change : changes) {
+                    changed |= apply(change, now);
+                    lastSeenId = change[0];
+                }
+            } while (changes.size() == POLL_LIMIT);
+            if (changed) {
+                catalogVersion.bump();
+            }
+            prune(now);
+        } catch (Exception e) {
+            log.error("读取电影变更通知失败", e);
+        }
+    }
+
+    // 未处理过的变更失效对应电影的缓存，返回是否为新变更
+    private boolean apply(long[] change, long now) {
+        if (processed.putIfAbsent(change[0], now) != null) {
+            return false;
+        }
+        movieCache.invalidate(change[1]);
+        return true;
+    }
+
+    // 去重记录保留两个窗口长度，被提前清掉的变更只会被重复处理一次，不会遗漏
+    private void prune(long now) {
+        long expireBefore = now - overlapSeconds * 2000;
+        Iterator<Long> it = processed.values().iterator();
+        while (it.hasNext() && it.next() < expireBefore) {
+            it.remove();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${movie.cache.change-log-purge-interval-ms:600000}")
+    public void purge() {
+        try {
+            changeLogRepository.deleteOlderThan(retentionSeconds);
+        } catch (Exception e) {
+            log.error("清理电影变更通知失败", e);
+        }
+    }
+}
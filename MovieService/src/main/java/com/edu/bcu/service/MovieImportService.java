@@ -0,0 +1,314 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.dto.MovieImportResultDTO;
+import com.edu.bcu.entity.Movie;
+import com.edu.bcu.repository.jdbc.MovieCategoryJdbcRepository;
+import com.edu.bcu.repository.jdbc.MovieJdbcRepository;
+import com.edu.bcu.util.CsvFormatException;
+import com.edu.bcu.util.CsvReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 电影批量导入
+ * 请求体按行（NDJSON）或按记录（CSV）流式解析，攒满一块后在一个事务中批量插入 movie 和 movie_category，
+ * 内存占用只与块大小有关；某块写入失败时逐条重试以定位出错的记录。
+ * 格式错误的记录计为失败并继续导入，已导入但有未识别分类的记录也会在明细中列出
+ */
+@Slf4j
+@Service
+public class MovieImportService {
+    private final MovieJdbcRepository movieJdbcRepository;
+    private final MovieCategoryJdbcRepository movieCategoryJdbcRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MovieRankingService rankingService;
+    private final MovieSearchIndex searchIndex;
+    private final MovieTypeaheadService typeaheadService;
+    private final MovieCategoryIndex categoryIndex;
+    private final MovieChangeNotifier changeNotifier;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final int maxFieldLength;
+
+    public MovieImportService(MovieJdbcRepository movieJdbcRepository,
+                              MovieCategoryJdbcRepository movieCategoryJdbcRepository,
+                              CategoryDictionary categoryDictionary,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              MovieRankingService rankingService,
+                              MovieSearchIndex searchIndex,
+                              MovieTypeaheadService typeaheadService,
+                              MovieCategoryIndex categoryIndex,
+                              MovieChangeNotifier changeNotifier,
+                              @Value("${movie.import.chunk-size:1000}") int chunkSize,
+                              @Value("${movie.import.max-errors:1000}") int maxErrors,
+                              @Value("${movie.import.max-field-length:65536}") int maxFieldLength) {
+        this.movieJdbcRepository = movieJdbcRepository;
+        this.movieCategoryJdbcRepository = movieCategoryJdbcRepository;
+        this.categoryDictionary = categoryDictionary;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.rankingService = rankingService;
+        this.searchIndex = searchIndex;
+        this.typeaheadService = typeaheadService;
+        this.categoryIndex = categoryIndex;
+        this.changeNotifier = changeNotifier;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * 导入 NDJSON，每行一个电影 JSON 对象，字段名与电影接口一致
+     */
+    public MovieImportResultDTO importNdjson(InputStream body) throws IOException {
+        ImportSession session = new ImportSession();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                session.accept(lineNumber, objectMapper.readValue(line, Movie.class));
+            } catch (IOException e) {
+                session.reject(lineNumber, "JSON 格式错误：" + e.getOriginalMessage());
+            }
+        }
+        return session.finish();
+    }
+
+    /**
+     * 导入 CSV，首行为表头，列名可以是数据库列名（poster_url）或字段名（posterUrl）
+     * 字段超长的记录计为失败后继续；引号未闭合时之后的内容都无法断开，计为失败并返回已导入的部分
+     */
+    public MovieImportResultDTO importCsv(InputStream body) throws IOException {
+        ImportSession session = new ImportSession();
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)),
+                maxFieldLength);
+        List<String> header;
+        try {
+            header = reader.readRecord();
+        } catch (CsvFormatException e) {
+            session.reject(e.getLine(), "表头格式错误：" + e.getMessage());
+            return session.finish();
+        }
+        if (header == null) {
+            return session.finish();
+        }
+        List<String> fieldNames = new ArrayList<>(header.size());
+        for (String column : header) {
+            fieldNames.add(toFieldName(column));
+        }
+
+        while (true) {
+            List<String> record;
+            try {
+                record = reader.readRecord();
+            } catch (CsvFormatException e) {
+                session.reject(e.getLine(), e.getMessage());
+                continue;
+            }
+            if (record == null) {
+                break;
+            }
+            long lineNumber = reader.getRecordLine();
+            if (record.size() != fieldNames.size()) {
+                session.reject(lineNumber, "列数与表头不一致：" + record.size() + " != " + fieldNames.size());
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < record.size(); i++) {
+                if (!record.get(i).isEmpty()) {
+                    values.put(fieldNames.get(i), record.get(i));
+                }
+            }
+            try {
+                session.accept(lineNumber, objectMapper.convertValue(values, Movie.class));
+            } catch (IllegalArgumentException e) {
+                session.reject(lineNumber, "字段格式错误：" + e.getMessage());
+            }
+        }
+        return session.finish();
+    }
+
+    // poster_url / posterUrl / PosterUrl -> posterUrl，首列去掉 BOM
+    private static String toFieldName(String column) {
+        String name = column.replace("\uFEFF", "").trim();
+        StringBuilder field = new StringBuilder(name.length());
+        boolean upper = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '_') {
+                upper = true;
+            } else {
+                field.append(upper ? Character.toUpperCase(c) : field.length() == 0 ? Character.toLowerCase(c) : c);
+                upper = false;
+            }
+        }
+        return field.toString();
+    }
+
+    private record PendingMovie(long line, Movie movie) {
+    }
+
+    /**
+     * 一次导入的状态：当前块和统计结果
+     */
+    private final class ImportSession {
+        private final long start = System.currentTimeMillis();
+        private final MovieImportResultDTO result = new MovieImportResultDTO();
+        private final List<PendingMovie> chunk = new ArrayList<>(chunkSize);
+
+        void accept(long line, Movie movie) {
+            result.setTotal(result.getTotal() + 1);
+            if (movie.getTitle() == null || movie.getTitle().isBlank()) {
+                fail(line, "标题不能为空");
+                return;
+            }
+            movie.setId(null);
+            chunk.add(new PendingMovie(line, movie));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            result.setTotal(result.getTotal() + 1);
+            fail(line, message);
+        }
+
+        MovieImportResultDTO finish() {
+            flush();
+            if (result.getImported() > 0) {
+                rankingService.onMovieCreated();
+                typeaheadService.markDirty();
+                categoryIndex.markDirty();
+            }
+            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+            result.setElapsedMillis(elapsed);
+            result.setRowsPerSecond(result.getImported() * 1000.0 / elapsed);
+            log.info("电影导入完成：共 {} 条，成功 {} 条，失败 {} 条，耗时 {} ms，{} 条/秒",
+                    result.getTotal(), result.getImported(), result.getFailed(), elapsed, (long) result.getRowsPerSecond());
+            return result;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                imported(chunk, transactionTemplate.execute(status -> insert(chunk)));
+            } catch (RuntimeException e) {
+                // 整块失败时逐条重试，只有真正出错的记录计为失败
+                for (PendingMovie pending : chunk) {
+                    try {
+                        imported(List.of(pending), transactionTemplate.execute(status -> insert(List.of(pending))));
+                    } catch (RuntimeException rowError) {
+                        fail(pending.line(), rootMessage(rowError));
+                    }
+                }
+            }
+            chunk.clear();
+        }
+
+        /**
+         * @return 每部电影未识别的分类名称，与 rows 一一对应
+         */
+        private List<Set<String>> insert(List<PendingMovie> rows) {
+            List<Movie> movies = new ArrayList<>(rows.size());
+            for (PendingMovie pending : rows) {
+                movies.add(pending.movie());
+            }
+            movieJdbcRepository.batchInsert(movies);
+
+            // 整块的分类名称一次解析
+            Set<String> names = new LinkedHashSet<>();
+            List<Set<String>> genresByMovie = new ArrayList<>(movies.size());
+            for (Movie movie : movies) {
+                Set<String> genres = new LinkedHashSet<>();
+                if (movie.getGenres() != null) {
+                    for (String genre : movie.getGenres().split(",")) {
+                        if (!genre.trim().isEmpty()) {
+                            genres.add(genre.trim());
+                        }
+                    }
+                }
+                names.addAll(genres);
+                genresByMovie.add(genres);
+            }
+            Map<String, Long> categoryIds = categoryDictionary.resolve(names);
+            List<Object[]> links = new ArrayList<>();
+            List<Set<String>> unresolved = new ArrayList<>(movies.size());
+            for (int i = 0; i < movies.size(); i++) {
+                Set<String> unknown = new LinkedHashSet<>();
+                for (String genre : genresByMovie.get(i)) {
+                    Long categoryId = categoryIds.get(genre);
+                    if (categoryId != null) {
+                        links.add(new Object[]{movies.get(i).getId(), categoryId});
+                    } else {
+                        unknown.add(genre);
+                    }
+                }
+                unresolved.add(unknown);
+            }
+            movieCategoryJdbcRepository.batchInsert(links);
+            return unresolved;
+        }
+
+        // 提交后更新索引并记录未识别的分类，重试时不会重复记录
+        private void imported(List<PendingMovie> rows, List<Set<String>> unresolved) {
+            result.setImported(result.getImported() + rows.size());
+            List<Long> movieIds = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                PendingMovie pending = rows.get(i);
+                searchIndex.index(pending.movie());
+                movieIds.add(pending.movie().getId());
+                if (!unresolved.get(i).isEmpty()) {
+                    addError(pending.line(), "已导入，以下分类不存在未关联：" + String.join(",", unresolved.get(i)));
+                }
+            }
+            changeNotifier.publish(movieIds);
+        }
+
+        private void fail(long line, String message) {
+            result.setFailed(result.getFailed() + 1);
+            addError(line, message);
+        }
+
+        private void addError(long line, String message) {
+            if (result.getErrors().size() < maxErrors) {
+                result.getErrors().add(new MovieImportResultDTO.RowError(line, message));
+            } else {
+                result.setErrorsTruncated(true);
+            }
+        }
+
+        private String rootMessage(Throwable e) {
+            Throwable root = e;
+            while (root.getCause() != null) {
+                root = root.getCause();
+            }
+            return root.getMessage();
+        }
+    }
+}
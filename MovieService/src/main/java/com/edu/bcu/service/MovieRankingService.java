@@ -0,0 +1,166 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.dto.MovieCardDTO;
+import com.edu.bcu.entity.Movie;
+import com.edu.bcu.repository.jpa.MovieJpaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 榜单快照服务
+ * 热门/推荐/最新榜单各保留 top-N，定时或在电影变更后重建，整体原子替换；
+ * 榜单接口直接读取内存中的不可变快照，并以快照版本号作为 ETag。
+ * 版本号只在本实例内递增，ETag 同 MovieCatalogVersion 一样带上实例启动时间，避免重启或多实例之间版本号相同而内容不同
+ */
+@Slf4j
+@Service
+public class MovieRankingService {
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private final MovieJpaRepository jpaRepository;
+    private final int rankingSize;
+    private final long refreshIntervalMs;
+
+    private final AtomicLong versionSequence = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private volatile boolean dirty = true;
+    private volatile long lastBuildTime;
+
+    public MovieRankingService(MovieJpaRepository jpaRepository,
+                               @Value("${movie.ranking.size:50}") int rankingSize,
+                               @Value("${movie.ranking.refresh-interval-ms:60000}") long refreshIntervalMs) {
+        this.jpaRepository = jpaRepository;
+        this.rankingSize = rankingSize;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    /**
+     * 当前快照；首次构建完成前直接查询，请求线程中加载的实体不放入快照
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : load(0);
+    }
+
+    /**
+     * 新增电影会影响最新榜单，事务提交后才标记重建
+     */
+    public void onMovieCreated() {
+        afterCommit(() -> dirty = true);
+    }
+
+    /**
+     * 电影被修改或删除，在榜单中时需要重建；事务提交后才判断，避免在提交前重建读到旧数据
+     */
+    public void onMovieChanged(Long movieId) {
+        afterCommit(() -> {
+            Snapshot current = snapshot;
+            if (current == null || current.contains(movieId)) {
+                dirty = true;
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * 有变更时尽快重建，否则按刷新间隔重建（评分等字段由其他路径更新）
+     */
+    @Scheduled(fixedDelayString = "${movie.ranking.check-interval-ms:1000}")
+    public void refresh() {
+        if (!dirty && System.currentTimeMillis() - lastBuildTime < refreshIntervalMs) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("重建榜单快照失败", e);
+        }
+    }
+
+    private void rebuild() {
+        dirty = false;
+        Snapshot rebuilt = load(0);
+        lastBuildTime = System.currentTimeMillis();
+
+        Snapshot current = snapshot;
+        if (current != null && current.sameContent(rebuilt)) {
+            // 内容没有变化，保留原版本号，客户端缓存继续有效
+            return;
+        }
+        snapshot = new Snapshot(versionSequence.incrementAndGet(), rebuilt.hot(), rebuilt.recommended(), rebuilt.newest(),
+                rebuilt.hotCards(), rebuilt.recommendedCards(), rebuilt.newestCards());
+    }
+
+    private Snapshot load(long version) {
+        PageRequest topN = PageRequest.of(0, rankingSize);
+        return new Snapshot(version,
+                List.copyOf(jpaRepository.findByIsHotOrderByRatingDesc(1, topN)),
+                List.copyOf(jpaRepository.findByIsRecommendedOrderByCreateTimeDesc(1, topN)),
+                List.copyOf(jpaRepository.findAllByOrderByCreateTimeDesc(topN)));
+    }
+
+    // 未提交的修改不触发重建，回滚时榜单也不受影响
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 不可变的榜单快照，同时保存完整电影和对应的卡片，卡片在构建时生成一次
+     */
+    public record Snapshot(long version, List<Movie> hot, List<Movie> recommended, List<Movie> newest,
+                           List<MovieCardDTO> hotCards, List<MovieCardDTO> recommendedCards, List<MovieCardDTO> newestCards) {
+        public Snapshot(long version, List<Movie> hot, List<Movie> recommended, List<Movie> newest) {
+            this(version, hot, recommended, newest, toCards(hot), toCards(recommended), toCards(newest));
+        }
+
+        public String eTag(String ranking) {
+            return "\"" + ranking + "-" + EPOCH + "-" + version + "\"";
+        }
+
+        boolean sameContent(Snapshot other) {
+            return hot.equals(other.hot) && recommended.equals(other.recommended) && newest.equals(other.newest);
+        }
+
+        boolean contains(Long movieId) {
+            return containsId(hot, movieId) || containsId(recommended, movieId) || containsId(newest, movieId);
+        }
+
+        private static List<MovieCardDTO> toCards(List<Movie> movies) {
+            return movies.stream().map(MovieCardDTO::from).toList();
+        }
+
+        private static boolean containsId(List<Movie> movies, Long movieId) {
+            for (Movie movie : movies) {
+                if (movie.getId().equals(movieId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
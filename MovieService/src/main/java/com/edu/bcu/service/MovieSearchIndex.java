@@ -0,0 +1,383 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.entity.Movie;
+import com.edu.bcu.repository.jpa.MovieJpaRepository;
+import com.edu.bcu.util.SearchTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 电影关键词倒排索引
+ * 对标题、原名、导演、演员、简介分词后建立 词 -> (电影, 加权词频) 的倒排表，
+ * 查询要求命中全部查询词，按 加权词频 * idf 之和排序；字母数字查询词按前缀匹配（如 matr 命中 matrix），
+ * 前缀扩展出的词权重打折，完整匹配排在前面；
+ * 启动后在后台全量构建并定时重建，电影增删改时增量更新，处于事务中时推迟到提交之后
+ */
+@Slf4j
+@Component
+public class MovieSearchIndex {
+    // 各字段的权重
+    private static final float TITLE_BOOST = 5f;
+    private static final float ORIGINAL_TITLE_BOOST = 4f;
+    private static final float DIRECTOR_BOOST = 3f;
+    private static final float ACTORS_BOOST = 2f;
+    private static final float DESCRIPTION_BOOST = 1f;
+    // 前缀扩展出的词（非完整匹配）的权重系数
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+    // 一个查询词最多扩展的词数，按字典序取前若干个
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final MovieJpaRepository jpaRepository;
+    private final int loadBatchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 由 lock 保护
+    private Index index = new Index();
+    private boolean building;
+    // 全量构建期间发生变更的电影，构建完成后按数据库最新状态重新索引
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public MovieSearchIndex(MovieJpaRepository jpaRepository,
+                            @Value("${movie.search.load-batch-size:1000}") int loadBatchSize) {
+        this.jpaRepository = jpaRepository;
+        this.loadBatchSize = loadBatchSize;
+    }
+
+    /**
+     * 首次全量构建完成前为 false，此时调用方应回退到数据库查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 新增或更新电影
+     */
+    public void index(Movie movie) {
+        afterCommit(() -> doIndex(movie));
+    }
+
+    public void remove(Long movieId) {
+        afterCommit(() -> doRemove(movieId));
+    }
+
+    private void doIndex(Movie movie) {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                changedDuringBuild.add(movie.getId());
+            }
+            index.remove(movie.getId());
+            index.add(movie);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doRemove(Long movieId) {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                changedDuringBuild.add(movieId);
+            }
+            index.remove(movieId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索并返回一页电影 ID（按相关度降序，相关度相同时 ID 小的在前）
+     */
+    public SearchResult search(String keyword, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(keyword));
+        if (terms.isEmpty()) {
+            return new SearchResult(0, new long[0]);
+        }
+
+        lock.readLock().lock();
+        try {
+            return index.search(terms, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 全量重建，构建期间旧索引照常提供查询
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${movie.search.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            building = true;
+            changedDuringBuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index fresh = new Index();
+        try {
+            long lastId = 0;
+            List<Movie> batch;
+            do {
+                batch = jpaRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, loadBatchSize));
+                for (Movie movie : batch) {
+                    fresh.add(movie);
+                    lastId = movie.getId();
+                }
+            } while (batch.size() == loadBatchSize);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                building = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("电影搜索索引构建失败", e);
+            return;
+        }
+
+        List<Long> changed;
+        lock.writeLock().lock();
+        try {
+            index = fresh;
+            building = false;
+            changed = new ArrayList<>(changedDuringBuild);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Long movieId : changed) {
+            Optional<Movie> movie = jpaRepository.findById(movieId);
+            if (movie.isPresent()) {
+                doIndex(movie.get());
+            } else {
+                doRemove(movieId);
+            }
+        }
+        ready = true;
+        log.info("电影搜索索引构建完成：{} 部电影，{} 个词，耗时 {} ms",
+                fresh.docTerms.size(), fresh.postings.size(), System.currentTimeMillis() - start);
+    }
+
+    // 未提交的修改不进入索引，回滚时索引也不受影响
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public record SearchResult(long total, long[] movieIds) {
+    }
+
+    /**
+     * 倒排索引本体，非线程安全
+     */
+    private static final class Index {
+        final Map<String, Postings> postings = new HashMap<>();
+        // 全部词按字典序排列，用于前缀扩展
+        final NavigableSet<String> sortedTerms = new TreeSet<>();
+        // movieId -> 该电影的全部词，用于删除
+        final Map<Long, String[]> docTerms = new HashMap<>();
+
+        void add(Movie movie) {
+            Map<String, Float> weights = new HashMap<>();
+            addField(weights, movie.getTitle(), TITLE_BOOST);
+            addField(weights, movie.getOriginalTitle(), ORIGINAL_TITLE_BOOST);
+            addField(weights, movie.getDirector(), DIRECTOR_BOOST);
+            addField(weights, movie.getActors(), ACTORS_BOOST);
+            addField(weights, movie.getDescription(), DESCRIPTION_BOOST);
+
+            int docId = Math.toIntExact(movie.getId());
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> {
+                    sortedTerms.add(k);
+                    return new Postings();
+                }).put(docId, entry.getValue());
+            }
+            docTerms.put(movie.getId(), weights.keySet().toArray(new String[0]));
+        }
+
+        void remove(Long movieId) {
+            String[] terms = docTerms.remove(movieId);
+            if (terms == null) {
+                return;
+            }
+            int docId = Math.toIntExact(movieId);
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list != null && list.remove(docId) && list.size == 0) {
+                    postings.remove(term);
+                    sortedTerms.remove(term);
+                }
+            }
+        }
+
+        SearchResult search(Set<String> terms, int offset, int limit) {
+            Postings[] lists = new Postings[terms.size()];
+            int n = 0;
+            for (String term : terms) {
+                Postings list = SearchTokenizer.isWordToken(term) ? prefixPostings(term) : postings.get(term);
+                if (list == null) {
+                    return new SearchResult(0, new long[0]);
+                }
+                lists[n++] = list;
+            }
+            // 从最短的倒排表开始求交集
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            float[] idf = new float[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = (float) Math.log(1 + (double) docTerms.size() / lists[i].size);
+            }
+
+            Postings shortest = lists[0];
+            // 高 32 位为得分（正浮点数的位模式与大小同序），低 32 位为反转后的电影 ID
+            long[] ranked = new long[shortest.size];
+            int matched = 0;
+            outer:
+            for (int d = 0; d < shortest.size; d++) {
+                int docId = shortest.docIds[d];
+                float score = shortest.weights[d] * idf[0];
+                for (int i = 1; i < lists.length; i++) {
+                    int pos = Arrays.binarySearch(lists[i].docIds, 0, lists[i].size, docId);
+                    if (pos < 0) {
+                        continue outer;
+                    }
+                    score += lists[i].weights[pos] * idf[i];
+                }
+                ranked[matched++] = ((long) Float.floatToIntBits(score) << 32) | (0xFFFFFFFFL - docId);
+            }
+            Arrays.sort(ranked, 0, matched);
+
+            int from = Math.min(offset, matched);
+            int to = Math.min(matched, from + limit);
+            long[] movieIds = new long[to - from];
+            for (int i = from; i < to; i++) {
+                movieIds[i - from] = 0xFFFFFFFFL - (ranked[matched - 1 - i] & 0xFFFFFFFFL);
+            }
+            return new SearchResult(matched, movieIds);
+        }
+
+        /**
+         * 以 prefix 开头的全部词的倒排表合并结果，同一电影取最大权重；没有匹配的词时返回 null
+         */
+        private Postings prefixPostings(String prefix) {
+            List<String> expanded = new ArrayList<>();
+            for (String term : sortedTerms.tailSet(prefix, true)) {
+                if (!term.startsWith(prefix) || expanded.size() == MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                expanded.add(term);
+            }
+            if (expanded.size() == 1 && expanded.get(0).equals(prefix)) {
+                return postings.get(prefix);
+            }
+            Postings merged = null;
+            for (String term : expanded) {
+                float factor = term.equals(prefix) ? 1f : PREFIX_MATCH_FACTOR;
+                merged = Postings.union(merged, postings.get(term), factor);
+            }
+            return merged;
+        }
+
+        private static void addField(Map<String, Float> weights, String text, float boost) {
+            for (String token : SearchTokenizer.tokenizeForIndex(text)) {
+                weights.merge(token, boost, Float::sum);
+            }
+        }
+    }
+
+    /**
+     * 单个词的倒排表，按电影 ID 升序存放
+     */
+    private static final class Postings {
+        int[] docIds = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void put(int docId, float weight) {
+            int pos = Arrays.binarySearch(docIds, 0, size, docId);
+            if (pos >= 0) {
+                weights[pos] = weight;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size << 1);
+                weights = Arrays.copyOf(weights, size << 1);
+            }
+            System.arraycopy(docIds, pos, docIds, pos + 1, size - pos);
+            System.arraycopy(weights, pos, weights, pos + 1, size - pos);
+            docIds[pos] = docId;
+            weights[pos] = weight;
+            size++;
+        }
+
+        /**
+         * 按电影 ID 归并两个倒排表，b 的权重乘以 factor，同一电影取较大的权重；a 为 null 时视为空表
+         */
+        static Postings union(Postings a, Postings b, float factor) {
+            int aSize = a == null ? 0 : a.size;
+            Postings merged = new Postings();
+            merged.docIds = new int[Math.max(4, aSize + b.size)];
+            merged.weights = new float[merged.docIds.length];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < aSize || j < b.size) {
+                int aDoc = i < aSize ? a.docIds[i] : Integer.MAX_VALUE;
+                int bDoc = j < b.size ? b.docIds[j] : Integer.MAX_VALUE;
+                if (j >= b.size || (i < aSize && aDoc < bDoc)) {
+                    merged.docIds[n] = aDoc;
+                    merged.weights[n++] = a.weights[i++];
+                } else if (i >= aSize || bDoc < aDoc) {
+                    merged.docIds[n] = bDoc;
+                    merged.weights[n++] = b.weights[j++] * factor;
+                } else {
+                    merged.docIds[n] = aDoc;
+                    merged.weights[n++] = Math.max(a.weights[i++], b.weights[j++] * factor);
+                }
+            }
+            merged.size = n;
+            return merged;
+        }
+
+        boolean remove(int docId) {
+            int pos = Arrays.binarySearch(docIds, 0, size, docId);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(docIds, pos + 1, docIds, pos, size - pos - 1);
+            System.arraycopy(weights, pos + 1, weights, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+}
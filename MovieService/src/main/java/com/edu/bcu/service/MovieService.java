@@ -1,68 +1,113 @@
 package com.edu.bcu.service;
 
+import com.edu.bcu.dto.MovieBrowsePageDTO;
+import com.edu.bcu.dto.MovieCardDTO;
+import com.edu.bcu.dto.MovieSuggestionDTO;
 import com.edu.bcu.entity.Category;
 import com.edu.bcu.entity.Movie;
 import com.edu.bcu.entity.MovieCategory;
+import com.edu.bcu.repository.jdbc.MovieCategoryJdbcRepository;
 import com.edu.bcu.repository.jpa.CategoryRepository;
 import com.edu.bcu.repository.jpa.MovieCategoryRepository;
 import com.edu.bcu.repository.jpa.MovieJpaRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class MovieService {
+    private static final int MAX_BROWSE_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     private final MovieJpaRepository jpaRepository;
     private final MovieCategoryRepository movieCategoryRepository;
     private final CategoryRepository categoryRepository;
+    private final MovieRankingService rankingService;
+    private final MovieCache movieCache;
+    private final MovieChangeNotifier changeNotifier;
+    private final MovieSearchIndex searchIndex;
+    private final MovieTypeaheadService typeaheadService;
+    private final MovieCategoryIndex categoryIndex;
+    private final MovieCategoryJdbcRepository movieCategoryJdbcRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final MovieSimilarityService similarityService;
+    private final MovieTrendingService trendingService;
+    private final ViewCountLeaderboard viewCountLeaderboard;
+    private final int batchMaxIds;
 
-    public MovieService(MovieJpaRepository jpaRepository, MovieCategoryRepository movieCategoryRepository, CategoryRepository categoryRepository) {
+    public MovieService(MovieJpaRepository jpaRepository, MovieCategoryRepository movieCategoryRepository, CategoryRepository categoryRepository, MovieRankingService rankingService,
+                        MovieCache movieCache, MovieChangeNotifier changeNotifier, MovieSearchIndex searchIndex, MovieTypeaheadService typeaheadService,
+                        MovieCategoryIndex categoryIndex, MovieCategoryJdbcRepository movieCategoryJdbcRepository, CategoryDictionary categoryDictionary,
+                        MovieSimilarityService similarityService, MovieTrendingService trendingService,
+                        ViewCountLeaderboard viewCountLeaderboard,
+                        @Value("${movie.batch.max-ids:100}") int batchMaxIds) {
         this.jpaRepository = jpaRepository;
         this.movieCategoryRepository = movieCategoryRepository;
         this.categoryRepository = categoryRepository;
+        this.rankingService = rankingService;
+        this.movieCache = movieCache;
+        this.changeNotifier = changeNotifier;
+        this.searchIndex = searchIndex;
+        this.typeaheadService = typeaheadService;
+        this.categoryIndex = categoryIndex;
+        this.movieCategoryJdbcRepository = movieCategoryJdbcRepository;
+        this.categoryDictionary = categoryDictionary;
+        this.similarityService = similarityService;
+        this.trendingService = trendingService;
+        this.viewCountLeaderboard = viewCountLeaderboard;
+        this.batchMaxIds = batchMaxIds;
     }
 
+    @Transactional
     public Movie createMovie(Movie movie) {
         Movie savedMovie = jpaRepository.save(movie);
 
-        // 假设 genres 是用逗号分隔的类别名称
-        String[] genres = movie.getGenres().split(",");
-        List<MovieCategory> movieCategories = new ArrayList<>();
-        for (String genre : genres) {
-            System.out.println(genre);
-            // 根据类别名称查询类别 ID
-            Long categoryId = findCategoryIdByName(genre);
-            if (categoryId != null) {
-                MovieCategory movieCategory = new MovieCategory();
-                movieCategory.setMovieId(Math.toIntExact(savedMovie.getId()));
-                movieCategory.setCategoryId(Math.toIntExact(categoryId));
-                movieCategories.add(movieCategory);
-            }
-        }
-        movieCategoryRepository.saveAll(movieCategories);
+        // genres 是用逗号分隔的类别名称，一次解析全部名称，再批量写入关联
+        movieCategoryJdbcRepository.batchInsert(savedMovie.getId(),
+                categoryDictionary.resolve(parseGenres(movie.getGenres())).values());
+        rankingService.onMovieCreated();
+        changeNotifier.publish(savedMovie.getId());
+        searchIndex.index(savedMovie);
+        typeaheadService.markDirty();
+        categoryIndex.markDirty();
 
         return savedMovie;
     }
 
-    // 根据类别名称查询类别 ID
-    private Long findCategoryIdByName(String genre) {
-        List<Category> categories = categoryRepository.findAll();
-        for (Category category : categories) {
-            if (category.getName().equals(genre)) {
-                return category.getId();
-            }
-        }
-        return null;
+    public Optional<Movie> getMovieById(Long movieId) {
+        return movieCache.get(movieId, jpaRepository::findById);
     }
 
-    public Optional<Movie> getMovieById(Long movieId) {
-        return jpaRepository.findById(movieId);
+    /**
+     * 批量读取电影详情，按请求顺序返回，不存在的电影跳过
+     * 先读缓存，未命中的电影用一次 IN 查询加载，与同时进行的相同加载合并
+     */
+    public List<Movie> getMoviesByIds(List<Long> movieIds) {
+        if (movieIds.size() > batchMaxIds) {
+            throw new IllegalArgumentException("一次最多查询 " + batchMaxIds + " 部电影");
+        }
+        Map<Long, Movie> byId = movieCache.getAll(movieIds, jpaRepository::findAllById);
+        List<Movie> movies = new ArrayList<>(movieIds.size());
+        for (Long movieId : new LinkedHashSet<>(movieIds)) {
+            Movie movie = byId.get(movieId);
+            if (movie != null) {
+                movies.add(movie);
+            }
+        }
+        return movies;
     }
 
     @Transactional
@@ -72,45 +117,209 @@ public class MovieService {
         existingMovie.setTitle(updatedMovie.getTitle());
         existingMovie.setDirector(updatedMovie.getDirector());
         existingMovie.setActors(updatedMovie.getActors());
+        Set<String> oldGenres = parseGenres(existingMovie.getGenres());
+        Set<String> newGenres = parseGenres(updatedMovie.getGenres());
         existingMovie.setGenres(updatedMovie.getGenres());
-        return jpaRepository.save(existingMovie);
+        Movie savedMovie = jpaRepository.save(existingMovie);
+
+        // 分类查询和分类索引都基于 movie_category，genres 变化时在同一事务中重建关联
+        if (!oldGenres.equals(newGenres)) {
+            movieCategoryJdbcRepository.deleteByMovieId(movieId);
+            movieCategoryJdbcRepository.batchInsert(movieId, categoryDictionary.resolve(newGenres).values());
+        }
+        rankingService.onMovieChanged(movieId);
+        changeNotifier.publish(movieId);
+        searchIndex.index(savedMovie);
+        typeaheadService.markDirty();
+        categoryIndex.markDirty();
+        return savedMovie;
     }
 
     public void deleteMovie(Long movieId) {
         jpaRepository.deleteById(movieId);
+        rankingService.onMovieChanged(movieId);
+        changeNotifier.publish(movieId);
+        searchIndex.remove(movieId);
+        typeaheadService.markDirty();
+        categoryIndex.markDirty();
+        if (movieId <= Integer.MAX_VALUE) {
+            viewCountLeaderboard.remove(movieId.intValue());
+        }
     }
 
     public List<Movie> searchByCategory(String categoryId) {
-        // 先到 movie_category 表中根据 categoryId 查询出所有相关的 movieId
-        List<MovieCategory> movieCategories = movieCategoryRepository.findByCategoryId(Integer.parseInt(categoryId));
-        List<Long> movieIds = new ArrayList<>();
-        for (MovieCategory movieCategory : movieCategories) {
-            movieIds.add((long) movieCategory.getMovieId());
-        }
+        // 通过 movie_category 关联表一次查出该分类下的电影
+        return jpaRepository.findByCategoryId(Integer.parseInt(categoryId));
+    }
 
-        // 再到 movie 表中根据这些 movieId 找出对应的电影
-        return jpaRepository.findAllById(movieIds);
+    public List<MovieCardDTO> searchCardsByCategory(String categoryId) {
+        return jpaRepository.findCardsByCategoryId(Integer.parseInt(categoryId));
     }
 
     public List<Movie> getHotMovies() {
-        return jpaRepository.findByIsHotOrderByRatingDesc(1);
+        return rankingService.getSnapshot().hot();
     }
 
     public List<Movie> getRecommendedMovies() {
-        return jpaRepository.findByIsRecommendedOrderByCreateTimeDesc(1);
+        return rankingService.getSnapshot().recommended();
+    }
+
+    /**
+     * 榜单快照（含版本号，用于 ETag）
+     */
+    public MovieRankingService.Snapshot getRankingSnapshot() {
+        return rankingService.getSnapshot();
     }
 
     public Page<Movie> getAllMovies(int page, int size) {
         return jpaRepository.findAll(PageRequest.of(page - 1, size, Sort.by("createTime").descending()));
     }
 
-    public List<Movie> searchByKeyword(String keyword) {
-        // 简单的模糊查询示例，根据实际需求调整
-        return jpaRepository.searchByKeyword(keyword);
+    public Page<MovieCardDTO> getAllMovieCards(int page, int size) {
+        return jpaRepository.findAllCards(PageRequest.of(page - 1, size, Sort.by("createTime").descending()));
+    }
+
+    /**
+     * 关键词搜索，按相关度分页
+     * 内存索引尚未构建完成时回退到数据库模糊查询；每页条数限制在 1-100
+     */
+    public Page<Movie> searchByKeyword(String keyword, int page, int size) {
+        PageRequest pageRequest = searchPageRequest(page, size);
+        size = pageRequest.getPageSize();
+        if (!searchIndex.isReady()) {
+            return jpaRepository.searchByKeyword(keyword, pageRequest);
+        }
+
+        MovieSearchIndex.SearchResult result = searchIndex.search(keyword, (int) pageRequest.getOffset(), size);
+        return new PageImpl<>(findAllInOrder(result.movieIds()), pageRequest, result.total());
+    }
+
+    /**
+     * 关键词搜索，返回电影卡片；每页条数限制在 1-100
+     */
+    public Page<MovieCardDTO> searchCardsByKeyword(String keyword, int page, int size) {
+        PageRequest pageRequest = searchPageRequest(page, size);
+        size = pageRequest.getPageSize();
+        if (!searchIndex.isReady()) {
+            return jpaRepository.searchByKeyword(keyword, pageRequest).map(MovieCardDTO::from);
+        }
+
+        MovieSearchIndex.SearchResult result = searchIndex.search(keyword, (int) pageRequest.getOffset(), size);
+        return new PageImpl<>(findCardsInOrder(result.movieIds()), pageRequest, result.total());
+    }
+
+    // 每页条数限制在 1-100，页码限制在偏移量不超过 int 的范围内
+    private static PageRequest searchPageRequest(int page, int size) {
+        size = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        page = Math.max(1, Math.min(page, Integer.MAX_VALUE / size));
+        return PageRequest.of(page - 1, size);
+    }
+
+    /**
+     * 多分类组合筛选，结果按评分或上架时间分页，并返回分面计数
+     * 每页条数限制在 1-100，页码超出可表示的范围时抛出 IllegalArgumentException
+     */
+    public MovieBrowsePageDTO browseByCategories(List<Integer> include, boolean matchAll, List<Integer> exclude,
+                                                 Integer isVip, Integer status, String sort, int page, int size,
+                                                 boolean full) {
+        page = Math.max(1, page);
+        size = Math.max(1, Math.min(size, MAX_BROWSE_PAGE_SIZE));
+        long offset = (long) (page - 1) * size;
+        if (offset > Integer.MAX_VALUE - size) {
+            throw new IllegalArgumentException("页码超出范围");
+        }
+        MovieCategoryIndex.Result result = categoryIndex.query(include, matchAll, exclude, isVip, status, sort,
+                (int) offset, size);
+        List<?> content = full ? findAllInOrder(result.movieIds()) : findCardsInOrder(result.movieIds());
+        return new MovieBrowsePageDTO(content, result.total(), page, size, result.facets());
+    }
+
+    /**
+     * 趋势榜快照（含版本号，用于 ETag）
+     */
+    public MovieTrendingService.Snapshot getTrendingSnapshot() {
+        return trendingService.getSnapshot();
+    }
+
+    /**
+     * 趋势榜前 limit 名的电影卡片
+     */
+    public List<MovieCardDTO> getTrendingMovies(MovieTrendingService.Snapshot snapshot, int limit) {
+        long[] movieIds = snapshot.movieIds();
+        return findCardsInOrder(Arrays.copyOf(movieIds, Math.max(0, Math.min(limit, movieIds.length))));
+    }
+
+    /**
+     * 相似电影，相似度由收藏和观看历史离线计算
+     */
+    public List<MovieCardDTO> getSimilarMovies(Long movieId, int limit) {
+        return findCardsInOrder(similarityService.similar(movieId, limit));
+    }
+
+    /**
+     * 标题联想
+     */
+    public List<MovieSuggestionDTO> suggestTitles(String prefix, int limit) {
+        return typeaheadService.suggest(prefix, limit);
+    }
+
+    // 逗号分隔的类别名称，去掉空白和重复
+    private static Set<String> parseGenres(String genres) {
+        Set<String> names = new LinkedHashSet<>();
+        if (genres != null) {
+            for (String genre : genres.split(",")) {
+                if (!genre.trim().isEmpty()) {
+                    names.add(genre.trim());
+                }
+            }
+        }
+        return names;
+    }
+
+    // 按给定 ID 顺序返回电影，已删除的电影跳过
+    private List<Movie> findAllInOrder(long[] movieIds) {
+        List<Long> ids = new ArrayList<>(movieIds.length);
+        for (long movieId : movieIds) {
+            ids.add(movieId);
+        }
+        Map<Long, Movie> byId = new HashMap<>();
+        for (Movie movie : jpaRepository.findAllById(ids)) {
+            byId.put(movie.getId(), movie);
+        }
+        List<Movie> movies = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Movie movie = byId.get(id);
+            if (movie != null) {
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    // 按给定 ID 顺序返回电影卡片，已删除的电影跳过
+    private List<MovieCardDTO> findCardsInOrder(long[] movieIds) {
+        List<Long> ids = new ArrayList<>(movieIds.length);
+        for (long movieId : movieIds) {
+            ids.add(movieId);
+        }
+        Map<Long, MovieCardDTO> byId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (MovieCardDTO card : jpaRepository.findCardsByIdIn(ids)) {
+                byId.put(card.id(), card);
+            }
+        }
+        List<MovieCardDTO> cards = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            MovieCardDTO card = byId.get(id);
+            if (card != null) {
+                cards.add(card);
+            }
+        }
+        return cards;
     }
 
     public List<Movie> getNewMovice() {
-        return jpaRepository.findByCreatTime();
+        return rankingService.getSnapshot().newest();
     }
     public List<Category> getCategoriesByMovieId(Long movieId) {
         // 先到 movie_category 表中根据 movieId 查询出所有相关的 categoryId
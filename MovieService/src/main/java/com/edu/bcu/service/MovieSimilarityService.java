@@ -0,0 +1,215 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.repository.jdbc.UserInteractionJdbcRepository;
+import com.edu.bcu.util.ItemSimilarity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 相似电影
+ * 由收藏和观看历史计算电影之间的余弦相似度（见 ItemSimilarity），每部电影保留前 K 部，
+ * 结果保存为快照文件，启动时先加载文件，查询只读内存；
+ * 定时全量重算，计算量受每个用户最多电影数限制。
+ * 多实例部署时可只让一个实例计算（compute-enabled），其余实例定时从共享的快照文件加载
+ */
+@Slf4j
+@Service
+public class MovieSimilarityService {
+    private static final int SNAPSHOT_MAGIC = 0x4D534E31;
+
+    private final UserInteractionJdbcRepository interactionRepository;
+    private final boolean computeEnabled;
+    private final Path snapshotFile;
+    private final int topK;
+    private final int maxItemsPerUser;
+    private final int minCommonUsers;
+    private final float favoriteWeight;
+    private final float historyWeight;
+    private final int loadBatchSize;
+    private final int parallelism;
+
+    private volatile ItemSimilarity.Result snapshot;
+    private volatile long loadedFileTime;
+
+    public MovieSimilarityService(UserInteractionJdbcRepository interactionRepository,
+                                  @Value("${movie.similarity.compute-enabled:true}") boolean computeEnabled,
+                                  @Value("${movie.similarity.snapshot-file:data/movie-similarity.bin}") String snapshotFile,
+                                  @Value("${movie.similarity.top-k:20}") int topK,
+                                  @Value("${movie.similarity.max-items-per-user:200}") int maxItemsPerUser,
+                                  @Value("${movie.similarity.min-common-users:2}") int minCommonUsers,
+                                  @Value("${movie.similarity.favorite-weight:2.0}") float favoriteWeight,
+                                  @Value("${movie.similarity.history-weight:1.0}") float historyWeight,
+                                  @Value("${movie.similarity.load-batch-size:10000}") int loadBatchSize,
+                                  @Value("${movie.similarity.parallelism:0}") int parallelism) {
+        this.interactionRepository = interactionRepository;
+        this.computeEnabled = computeEnabled;
+        this.snapshotFile = Paths.get(snapshotFile);
+        this.topK = topK;
+        this.maxItemsPerUser = maxItemsPerUser;
+        this.minCommonUsers = minCommonUsers;
+        this.favoriteWeight = favoriteWeight;
+        this.historyWeight = historyWeight;
+        this.loadBatchSize = loadBatchSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 与某部电影最相似的电影 ID，按相似度降序；尚无结果时返回空数组
+     */
+    public long[] similar(Long movieId, int limit) {
+        ItemSimilarity.Result current = snapshot;
+        if (current == null || movieId == null) {
+            return new long[0];
+        }
+        return current.neighbours(movieId, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        loadSnapshotFile();
+    }
+
+    @Scheduled(initialDelayString = "${movie.similarity.initial-delay-ms:60000}",
+            fixedDelayString = "${movie.similarity.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        if (!computeEnabled) {
+            loadSnapshotFile();
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Interactions interactions = loadInteractions();
+            long loaded = System.currentTimeMillis();
+            ItemSimilarity.Result result = ItemSimilarity.compute(interactions.keys, interactions.size,
+                    favoriteWeight, historyWeight, maxItemsPerUser, minCommonUsers, topK, parallelism);
+            snapshot = result;
+            log.info("相似电影计算完成：{} 条交互记录，{} 部电影，读取 {} ms，计算 {} ms",
+                    interactions.size, result.movieCount(), loaded - start, System.currentTimeMillis() - loaded);
+            writeSnapshotFile(result);
+        } catch (Exception e) {
+            log.error("相似电影计算失败", e);
+        }
+    }
+
+    private Interactions loadInteractions() {
+        Interactions interactions = new Interactions();
+        long lastId = 0;
+        List<long[]> batch;
+        do {
+            batch = interactionRepository.findFavoritesAfter(lastId, loadBatchSize);
+            for (long[] row : batch) {
+                interactions.add(ItemSimilarity.key(Math.toIntExact(row[1]), Math.toIntExact(row[2]), true));
+                lastId = row[0];
+            }
+        } while (batch.size() == loadBatchSize);
+
+        lastId = 0;
+        do {
+            batch = interactionRepository.findHistoriesAfter(lastId, loadBatchSize);
+            for (long[] row : batch) {
+                interactions.add(ItemSimilarity.key(Math.toIntExact(row[1]), Math.toIntExact(row[2]), false));
+                lastId = row[0];
+            }
+        } while (batch.size() == loadBatchSize);
+        return interactions;
+    }
+
+    // 先写临时文件再原子替换，读取方不会读到写了一半的文件
+    private void writeSnapshotFile(ItemSimilarity.Result result) {
+        try {
+            Path dir = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, snapshotFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                writeInts(out, result.movieIds());
+                writeInts(out, result.offsets());
+                writeInts(out, result.neighbours());
+                out.writeInt(result.scores().length);
+                for (float score : result.scores()) {
+                    out.writeFloat(score);
+                }
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            loadedFileTime = Files.getLastModifiedTime(snapshotFile).toMillis();
+        } catch (IOException e) {
+            log.error("写入相似电影快照文件失败：{}", snapshotFile, e);
+        }
+    }
+
+    private void loadSnapshotFile() {
+        try {
+            if (!Files.exists(snapshotFile)) {
+                return;
+            }
+            long fileTime = Files.getLastModifiedTime(snapshotFile).toMillis();
+            if (fileTime == loadedFileTime) {
+                return;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    log.warn("相似电影快照文件格式不正确：{}", snapshotFile);
+                    return;
+                }
+                int[] movieIds = readInts(in);
+                int[] offsets = readInts(in);
+                int[] neighbours = readInts(in);
+                float[] scores = new float[in.readInt()];
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] = in.readFloat();
+                }
+                snapshot = new ItemSimilarity.Result(movieIds, offsets, neighbours, scores);
+            }
+            loadedFileTime = fileTime;
+            log.info("已加载相似电影快照：{} 部电影", snapshot.movieCount());
+        } catch (IOException e) {
+            log.error("读取相似电影快照文件失败：{}", snapshotFile, e);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * 交互记录的可增长数组
+     */
+    private static final class Interactions {
+        long[] keys = new long[1 << 16];
+        int size;
+
+        void add(long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size << 1);
+            }
+            keys[size++] = key;
+        }
+    }
+}
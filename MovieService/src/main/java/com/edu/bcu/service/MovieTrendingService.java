@@ -0,0 +1,163 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.util.IntDoubleHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+
+/**
+ * 趋势榜
+ * 观看次数和观看进度心跳作为事件，每部电影的热度按半衰期指数衰减。
+ * 采用前向衰减：事件权重乘以 e^(λ(t - L)) 后累加，L 为基准时间，同一时刻各电影的相对大小与衰减后的热度一致，
+ * 因此每个事件只需一次乘法和一次 exp；定时把基准时间移到当前并整体缩放，同时淘汰过小的热度、限制条目数，
+ * 并生成前 N 名的不可变快照。
+ * 条目数达到上限时新电影的事件直接丢弃，定时淘汰只保留上限的 3/4，给新电影留出位置
+ */
+@Service
+public class MovieTrendingService {
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private final double lambda;
+    private final double viewWeight;
+    private final double heartbeatWeight;
+    private final int maxEntries;
+    private final int retainEntries;
+    private final double minScore;
+    private final int size;
+
+    // 由 this 保护
+    private IntDoubleHashMap scores = new IntDoubleHashMap(1024);
+    private long landmark = System.currentTimeMillis();
+
+    private volatile Snapshot snapshot = new Snapshot(0, new long[0], new double[0]);
+
+    public MovieTrendingService(@Value("${movie.trending.half-life-ms:21600000}") long halfLifeMillis,
+                                @Value("${movie.trending.view-weight:1.0}") double viewWeight,
+                                @Value("${movie.trending.heartbeat-weight:0.1}") double heartbeatWeight,
+                                @Value("${movie.trending.max-entries:100000}") int maxEntries,
+                                @Value("${movie.trending.min-score:0.01}") double minScore,
+                                @Value("${movie.trending.size:50}") int size) {
+        this.lambda = Math.log(2) / halfLifeMillis;
+        this.viewWeight = viewWeight;
+        this.heartbeatWeight = heartbeatWeight;
+        this.maxEntries = maxEntries;
+        this.retainEntries = Math.max(1, maxEntries / 4 * 3);
+        this.minScore = minScore;
+        this.size = size;
+    }
+
+    public void onView(Integer movieId) {
+        if (movieId != null) {
+            record(movieId, viewWeight);
+        }
+    }
+
+    public void onHeartbeat(Long movieId) {
+        // 超出 int 范围的 ID 不是有效电影，忽略而不是让观看记录失败
+        if (movieId != null && movieId > 0 && movieId <= Integer.MAX_VALUE) {
+            record(movieId.intValue(), heartbeatWeight);
+        }
+    }
+
+    private synchronized void record(int movieId, double weight) {
+        if (scores.size() >= maxEntries && !scores.containsKey(movieId)) {
+            return;
+        }
+        scores.addTo(movieId, weight * Math.exp(lambda * (System.currentTimeMillis() - landmark)));
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 衰减到当前时刻，淘汰过小或超出条目上限的电影，并发布新的前 N 名
+     */
+    @Scheduled(fixedDelayString = "${movie.trending.tick-interval-ms:30000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        int[] movieIds;
+        double[] decayed;
+        synchronized (this) {
+            double factor = Math.exp(-lambda * (now - landmark));
+            movieIds = new int[scores.size()];
+            decayed = new double[scores.size()];
+            int[] n = {0};
+            scores.forEach((movieId, score) -> {
+                double value = score * factor;
+                if (value >= minScore) {
+                    movieIds[n[0]] = movieId;
+                    decayed[n[0]++] = value;
+                }
+            });
+
+            boolean capped = n[0] > retainEntries;
+            double threshold = capped ? kthLargest(decayed, n[0], retainEntries) : 0;
+            IntDoubleHashMap kept = new IntDoubleHashMap(Math.min(n[0], retainEntries));
+            for (int i = 0; i < n[0]; i++) {
+                if (!capped || decayed[i] > threshold) {
+                    kept.put(movieIds[i], decayed[i]);
+                }
+            }
+            // 与第 K 名相同的分数可能有多个，只补足到上限
+            for (int i = 0; i < n[0] && capped && kept.size() < retainEntries; i++) {
+                if (decayed[i] == threshold) {
+                    kept.put(movieIds[i], decayed[i]);
+                }
+            }
+            scores = kept;
+            landmark = now;
+        }
+
+        // 在锁外选出前 N 名
+        Snapshot current = snapshot;
+        Snapshot next = top(current.version() + 1);
+        if (!Arrays.equals(next.movieIds(), current.movieIds())) {
+            snapshot = next;
+        } else {
+            // 名次未变时保留版本号，客户端缓存继续有效，分数仍更新
+            snapshot = new Snapshot(current.version(), next.movieIds(), next.scores());
+        }
+    }
+
+    private Snapshot top(long version) {
+        int count;
+        long[] packed;
+        synchronized (this) {
+            packed = new long[scores.size()];
+            int[] n = {0};
+            // 高 32 位为分数（非负浮点数的位模式与大小同序），低 32 位为反转后的电影 ID，分数相同时 ID 小的在前
+            scores.forEach((movieId, score) -> packed[n[0]++] = ((long) Float.floatToIntBits((float) score) << 32)
+                    | (0xFFFFFFFFL - movieId));
+            count = n[0];
+        }
+        Arrays.sort(packed, 0, count);
+        int limit = Math.min(size, count);
+        long[] ids = new long[limit];
+        double[] values = new double[limit];
+        for (int i = 0; i < limit; i++) {
+            long entry = packed[count - 1 - i];
+            ids[i] = 0xFFFFFFFFL - (entry & 0xFFFFFFFFL);
+            values[i] = Float.intBitsToFloat((int) (entry >>> 32));
+        }
+        return new Snapshot(version, ids, values);
+    }
+
+    // 第 k 大的值
+    private static double kthLargest(double[] values, int n, int k) {
+        double[] copy = Arrays.copyOf(values, n);
+        Arrays.sort(copy);
+        return copy[n - k];
+    }
+
+    /**
+     * 不可变的趋势榜快照，movieIds 按热度降序
+     */
+    public record Snapshot(long version, long[] movieIds, double[] scores) {
+        public String eTag() {
+            return "\"trending-" + EPOCH + "-" + version + "\"";
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.dto.MovieSuggestionDTO;
+import com.edu.bcu.repository.jpa.MovieJpaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 电影标题联想
+ * 标题和原名小写后放入有序数组，前缀对应数组中的一段连续区间；
+ * 较短的前缀区间很大，构建时预先算好按热度排序的前 K 部电影，较长的前缀直接扫描区间。
+ * 快照在后台线程构建后整体替换，查询不加锁
+ */
+@Slf4j
+@Service
+public class MovieTypeaheadService {
+    private final MovieJpaRepository jpaRepository;
+    private final int topK;
+    private final int precomputedPrefixLength;
+    private final int loadBatchSize;
+    private final long rebuildIntervalMillis;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean dirty = true;
+    private volatile long lastBuildTime;
+
+    public MovieTypeaheadService(MovieJpaRepository jpaRepository,
+                                 @Value("${movie.typeahead.top-k:10}") int topK,
+                                 @Value("${movie.typeahead.precomputed-prefix-length:3}") int precomputedPrefixLength,
+                                 @Value("${movie.search.load-batch-size:1000}") int loadBatchSize,
+                                 @Value("${movie.typeahead.rebuild-interval-ms:300000}") long rebuildIntervalMillis) {
+        this.jpaRepository = jpaRepository;
+        this.topK = topK;
+        this.precomputedPrefixLength = precomputedPrefixLength;
+        this.loadBatchSize = loadBatchSize;
+        this.rebuildIntervalMillis = rebuildIntervalMillis;
+    }
+
+    /**
+     * 按前缀联想电影，快照尚未构建时返回空列表
+     */
+    public List<MovieSuggestionDTO> suggest(String prefix, int limit) {
+        Snapshot current = snapshot;
+        String key = normalize(prefix);
+        if (current == null || key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int[] top = key.codePointCount(0, key.length()) <= precomputedPrefixLength ?
+                current.topByPrefix.get(key) :
+                current.scanTop(key, topK);
+        if (top == null) {
+            return Collections.emptyList();
+        }
+        int count = Math.min(limit, top.length);
+        List<MovieSuggestionDTO> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(current.movies[top[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * 电影新增、修改或删除后调用，事务提交后才标记，下次检查时重建
+     */
+    public void markDirty() {
+        afterCommit(() -> dirty = true);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${movie.typeahead.check-interval-ms:5000}")
+    public void refresh() {
+        if (!dirty && System.currentTimeMillis() - lastBuildTime < rebuildIntervalMillis) {
+            return;
+        }
+        dirty = false;
+        try {
+            long start = System.currentTimeMillis();
+            snapshot = build();
+            lastBuildTime = System.currentTimeMillis();
+            log.info("标题联想索引构建完成：{} 部电影，耗时 {} ms", snapshot.movies.length, lastBuildTime - start);
+        } catch (RuntimeException e) {
+            dirty = true;
+            log.error("标题联想索引构建失败", e);
+        }
+    }
+
+    private Snapshot build() {
+        List<MovieSuggestionDTO> movies = new ArrayList<>();
+        List<Double> popularity = new ArrayList<>();
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = jpaRepository.findTypeaheadRowsAfter(lastId, PageRequest.of(0, loadBatchSize));
+            for (Object[] row : batch) {
+                Long id = (Long) row[0];
+                movies.add(new MovieSuggestionDTO(id, (String) row[1], (String) row[2], (String) row[3]));
+                double rating = row[4] == null ? 0 : ((Number) row[4]).doubleValue();
+                int ratingCount = row[5] == null ? 0 : ((Number) row[5]).intValue();
+                // 评分越高、评分人数越多越靠前，人数取对数避免压过评分
+                popularity.add(rating * Math.log(2 + ratingCount));
+                lastId = id;
+            }
+        } while (batch.size() == loadBatchSize);
+
+        // 热度名次，0 为最热
+        int n = movies.size();
+        Integer[] byPopularity = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byPopularity[i] = i;
+        }
+        Arrays.sort(byPopularity, (a, b) -> Double.compare(popularity.get(b), popularity.get(a)));
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++) {
+            rank[byPopularity[r]] = r;
+        }
+
+        // 每部电影的标题和原名各一个键（相同时只保留一个）
+        List<List<String>> movieKeys = new ArrayList<>(n);
+        List<String> entryKeys = new ArrayList<>(n * 2);
+        List<Integer> entryMovieList = new ArrayList<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            List<String> keysOfMovie = new ArrayList<>(2);
+            for (String text : new String[]{movies.get(i).getTitle(), movies.get(i).getOriginalTitle()}) {
+                String key = normalize(text);
+                if (!key.isEmpty() && !keysOfMovie.contains(key)) {
+                    keysOfMovie.add(key);
+                    entryKeys.add(key);
+                    entryMovieList.add(i);
+                }
+            }
+            movieKeys.add(keysOfMovie);
+        }
+        Integer[] order = new Integer[entryKeys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> entryKeys.get(a).compareTo(entryKeys.get(b)));
+        String[] keys = new String[order.length];
+        int[] entryMovies = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = entryKeys.get(order[i]);
+            entryMovies[i] = entryMovieList.get(order[i]);
+        }
+
+        // 按热度从高到低遍历，每个短前缀收满 K 部电影为止
+        Map<String, int[]> topByPrefix = new HashMap<>();
+        Map<String, Integer> filled = new HashMap<>();
+        for (int r = 0; r < n; r++) {
+            int movie = byPopularity[r];
+            for (String prefix : shortPrefixes(movieKeys.get(movie))) {
+                int size = filled.getOrDefault(prefix, 0);
+                if (size >= topK) {
+                    continue;
+                }
+                topByPrefix.computeIfAbsent(prefix, k -> new int[topK])[size] = movie;
+                filled.put(prefix, size + 1);
+            }
+        }
+        topByPrefix.replaceAll((prefix, top) -> Arrays.copyOf(top, filled.get(prefix)));
+
+        return new Snapshot(movies.toArray(new MovieSuggestionDTO[0]), rank, keys, entryMovies, topByPrefix);
+    }
+
+    // 一部电影所有键的短前缀（去重，同一前缀只计一次）
+    private List<String> shortPrefixes(List<String> movieKeys) {
+        List<String> prefixes = new ArrayList<>();
+        for (String key : movieKeys) {
+            int length = key.codePointCount(0, key.length());
+            for (int p = 1; p <= Math.min(precomputedPrefixLength, length); p++) {
+                String prefix = key.substring(0, key.offsetByCodePoints(0, p));
+                if (!prefixes.contains(prefix)) {
+                    prefixes.add(prefix);
+                }
+            }
+        }
+        return prefixes;
+    }
+
+    // 提交前重建会读到旧数据并清掉标记，修改要等下一次定时重建才可见
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Snapshot {
+        final MovieSuggestionDTO[] movies;
+        // movie 下标 -> 热度名次
+        final int[] rank;
+        // 有序的标题键及其对应的 movie 下标
+        final String[] keys;
+        final int[] entryMovies;
+        // 短前缀 -> 按热度排序的前 K 个 movie 下标
+        final Map<String, int[]> topByPrefix;
+
+        Snapshot(MovieSuggestionDTO[] movies, int[] rank, String[] keys, int[] entryMovies, Map<String, int[]> topByPrefix) {
+            this.movies = movies;
+            this.rank = rank;
+            this.keys = keys;
+            this.entryMovies = entryMovies;
+            this.topByPrefix = topByPrefix;
+        }
+
+        /**
+         * 二分定位前缀区间，在区间内选出热度最高的 k 部电影
+         */
+        int[] scanTop(String prefix, int k) {
+            int from = Arrays.binarySearch(keys, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            // 名次越小越热，best 按名次升序保存，已满时新名次需小于末尾才替换
+            int[] best = new int[k];
+            int size = 0;
+            for (int i = from; i < keys.length && keys[i].startsWith(prefix); i++) {
+                int movie = entryMovies[i];
+                int movieRank = rank[movie];
+                if (size == k && movieRank >= rank[best[size - 1]]) {
+                    continue;
+                }
+                boolean duplicate = false;
+                for (int j = 0; j < size; j++) {
+                    if (best[j] == movie) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+                if (duplicate) {
+                    continue;
+                }
+                int pos = size == k ? k - 1 : size++;
+                while (pos > 0 && rank[best[pos - 1]] > movieRank) {
+                    best[pos] = best[pos - 1];
+                    pos--;
+                }
+                best[pos] = movie;
+            }
+            return Arrays.copyOf(best, size);
+        }
+    }
+}
@@ -2,63 +2,125 @@ package com.edu.bcu.service;
 
 import com.edu.bcu.entity.Movie;
 import com.edu.bcu.entity.User;
-import com.edu.bcu.entity.VipMovieViewCount;
 import com.edu.bcu.repository.jpa.MovieJpaRepository;
 import com.edu.bcu.repository.jpa.UserRepository;
 import com.edu.bcu.repository.jpa.VipMovieViewCountRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
 public class MovieViewService {
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final UserRepository userRepository;
     private final VipMovieViewCountRepository vipMovieViewCountRepository;
     private final MovieJpaRepository movieJpaRepository;
+    private final ViewCountBuffer viewCountBuffer;
+    private final ViewCountLeaderboard leaderboard;
+    private final MovieTrendingService trendingService;
+    private final MovieCache movieCache;
 
-    public MovieViewService(UserRepository userRepository, VipMovieViewCountRepository vipMovieViewCountRepository, MovieJpaRepository movieJpaRepository) {
+    public MovieViewService(UserRepository userRepository, VipMovieViewCountRepository vipMovieViewCountRepository, MovieJpaRepository movieJpaRepository, ViewCountBuffer viewCountBuffer, ViewCountLeaderboard leaderboard,
+                            MovieTrendingService trendingService, MovieCache movieCache) {
         this.userRepository = userRepository;
         this.vipMovieViewCountRepository = vipMovieViewCountRepository;
         this.movieJpaRepository = movieJpaRepository;
+        this.viewCountBuffer = viewCountBuffer;
+        this.leaderboard = leaderboard;
+        this.trendingService = trendingService;
+        this.movieCache = movieCache;
     }
 
     /**
      * 添加电影的观看次数
+     * 增量先写入内存缓冲区，由 ViewCountBuffer 定时批量落库
      * @param userId
      * @param movieId
      */
-    @Transactional
     public void incrementMovieViewCount(Integer userId, Integer movieId) {
-        // 原有的方法逻辑保持不变
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
         if (user.getIsVip() != 1 ) {
             throw new IllegalStateException("非VIP用户或VIP已过期，无法增加电影观看次数");
         }
-
-        Optional<VipMovieViewCount> optionalViewCount = vipMovieViewCountRepository.findByUserIdAndMovieId(userId, movieId);
-
-        if (optionalViewCount.isPresent()) {
-            VipMovieViewCount viewCount = optionalViewCount.get();
-            viewCount.setViewCount(viewCount.getViewCount() + 1);
-            vipMovieViewCountRepository.save(viewCount);
-        } else {
-            VipMovieViewCount newViewCount = new VipMovieViewCount();
-            newViewCount.setUserId(userId);
-            newViewCount.setMovieId(movieId);
-            newViewCount.setViewCount(1);
-            vipMovieViewCountRepository.save(newViewCount);
+        // 观看次数表的 movie_id 有外键，不存在的电影在这里拒绝，不进入缓冲区；
+        // 经电影缓存校验，热门电影不必每次查询，缓存期间被删除的电影落库时由外键拦下丢弃
+        if (movieId == null || movieCache.get(movieId.longValue(), movieJpaRepository::findById).isEmpty()) {
+            throw new IllegalArgumentException("电影不存在");
         }
+
+        viewCountBuffer.increment(userId, movieId);
+        trendingService.onView(movieId);
+    }
+
+    /**
+     * 启动时从观看次数表取前 K 名初始化排行榜
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initLeaderboard() {
+        reseedLeaderboard();
     }
 
     /**
-     * 获取按总观看次数降序排列的电影列表
+     * 定时从观看次数表重新取前 K 名，纳入其他实例落库的观看次数，各实例的排行榜在一个间隔内趋于一致。
+     * 两次重建之间不在前 K 名的电影只累计本实例的增量，偏小，可能晚于实际进入排行榜
+     */
+    @Scheduled(initialDelayString = "${movie.view-count.leaderboard-reseed-interval-ms:300000}",
+            fixedDelayString = "${movie.view-count.leaderboard-reseed-interval-ms:300000}")
+    public void reseedLeaderboard() {
+        viewCountBuffer.runWithFlushLock(() ->
+                leaderboard.seed(vipMovieViewCountRepository.findTopMovieViewCounts(leaderboard.capacity())));
+    }
+
+    /**
+     * 分页获取按总观看次数降序排列的电影列表
      * @return
      */
-    public List<Movie> getMoviesOrderByViewCountDesc() {
+    public List<Movie> getMoviesOrderByViewCountDesc(int page, int size) {
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // 只提供排行榜保留的名次，超出的页直接返回空，offset 也不会溢出
+        page = Math.max(1, Math.min(page, leaderboard.capacity() / size + 1));
+        int offset = (page - 1) * size;
+        if (offset >= leaderboard.capacity()) {
+            return new ArrayList<>();
+        }
+        if (!leaderboard.isSeeded()) {
+            List<Movie> movies = loadMoviesOrderByViewCountDesc();
+            int from = Math.min(movies.size(), offset);
+            return new ArrayList<>(movies.subList(from, Math.min(movies.size(), from + size)));
+        }
+
+        long[] ids = leaderboard.topMovieIds(offset, size);
+        List<Long> movieIds = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            movieIds.add(id);
+        }
+        Map<Long, Movie> movieMap = new HashMap<>();
+        for (Movie movie : movieJpaRepository.findAllById(movieIds)) {
+            movieMap.put(movie.getId(), movie);
+        }
+
+        List<Movie> movies = new ArrayList<>(ids.length);
+        for (Long movieId : movieIds) {
+            Movie movie = movieMap.get(movieId);
+            if (movie != null) {
+                movies.add(movie);
+            } else {
+                // 其他实例删除的电影，读到时移出排行榜
+                leaderboard.remove(movieId.intValue());
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * 排行榜初始化完成前的兜底：直接汇总观看次数表
+     */
+    private List<Movie> loadMoviesOrderByViewCountDesc() {
         List<Object[]> movieViewCounts = vipMovieViewCountRepository.getMovieViewCountsOrderByDesc();
         List<Long> movieIds = new ArrayList<>();
         Map<Long, Integer> movieViewCountMap = new HashMap<>();
@@ -84,6 +146,12 @@ public class MovieViewService {
       */
 
     public Integer getTotalViewCount(Integer movieId) {
-        return vipMovieViewCountRepository.getTotalViewCountByMovieId(movieId);
+        Integer persisted = vipMovieViewCountRepository.getTotalViewCountByMovieId(movieId);
+        long pending = viewCountBuffer.getPendingCount(movieId);
+        if (persisted == null && pending == 0) {
+            return null;
+        }
+        // 加上缓冲区中尚未落库的部分，保证读己之写
+        return (int) ((persisted == null ? 0 : persisted) + pending);
     }
 }
\ No newline at end of file
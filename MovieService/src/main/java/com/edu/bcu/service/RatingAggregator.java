@@ -0,0 +1,140 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.repository.jdbc.MovieRatingJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 电影评分聚合器
+ * movie 表保存精确的 rating_sum/rating_count，rating 由两者派生；
+ * 评论的增删只产生增量，同一电影的并发增量在内存中合并后用一条原子 UPDATE 落库
+ */
+@Slf4j
+@Component
+public class RatingAggregator {
+    private final MovieRatingJdbcRepository ratingJdbcRepository;
+    private final MovieChangeNotifier changeNotifier;
+    private final int batchSize;
+
+    // movieId -> 尚未落库的评分增量
+    private final ConcurrentHashMap<Long, RatingDelta> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public RatingAggregator(MovieRatingJdbcRepository ratingJdbcRepository,
+                            MovieChangeNotifier changeNotifier,
+                            @Value("${movie.rating.batch-size:500}") int batchSize) {
+        this.ratingJdbcRepository = ratingJdbcRepository;
+        this.changeNotifier = changeNotifier;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 新增一条评分
+     */
+    public void addRating(Long movieId, int rating) {
+        pending.merge(movieId, new RatingDelta(rating, 1), RatingDelta::plus);
+    }
+
+    /**
+     * 撤销一条评分
+     */
+    public void removeRating(Long movieId, int rating) {
+        pending.merge(movieId, new RatingDelta(-rating, -1), RatingDelta::plus);
+    }
+
+    /**
+     * 批量撤销同一电影的多条评分
+     */
+    public void removeRatings(Long movieId, long ratingSum, int ratingCount) {
+        pending.merge(movieId, new RatingDelta(-ratingSum, -ratingCount), RatingDelta::plus);
+    }
+
+    /**
+     * 启动时为旧数据补齐 rating_sum
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRatingSum() {
+        int rows = ratingJdbcRepository.backfillRatingSum();
+        if (rows > 0) {
+            log.info("已为 {} 部电影补齐 rating_sum", rows);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${movie.rating.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            doFlush();
+        } catch (Exception e) {
+            log.error("评分增量落库失败", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("应用关闭，落库剩余评分增量：{} 部电影", pending.size());
+        flush();
+    }
+
+    private void doFlush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        for (Long movieId : pending.keySet()) {
+            RatingDelta delta = pending.remove(movieId);
+            if (delta == null || delta.isEmpty()) {
+                continue;
+            }
+            batch.add(new Object[]{delta.sum(), delta.count(), movieId});
+            if (batch.size() >= batchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<Object[]> batch) {
+        try {
+            ratingJdbcRepository.batchApplyDelta(batch);
+        } catch (RuntimeException e) {
+            // 落库失败，把增量放回等待下次重试
+            for (Object[] row : batch) {
+                pending.merge((Long) row[2], new RatingDelta((Long) row[0], (Integer) row[1]), RatingDelta::plus);
+            }
+            throw e;
+        }
+
+        // 评分已变，失效各实例缓存中的电影
+        List<Long> movieIds = new ArrayList<>(batch.size());
+        for (Object[] row : batch) {
+            movieIds.add((Long) row[2]);
+        }
+        changeNotifier.publish(movieIds);
+    }
+
+    private record RatingDelta(long sum, int count) {
+        RatingDelta plus(RatingDelta other) {
+            return new RatingDelta(sum + other.sum, count + other.count);
+        }
+
+        boolean isEmpty() {
+            return sum == 0 && count == 0;
+        }
+    }
+}
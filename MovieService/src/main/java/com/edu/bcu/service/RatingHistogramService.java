@@ -0,0 +1,222 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.dto.RatingDistributionDTO;
+import com.edu.bcu.repository.jdbc.MovieRatingHistogramJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.edu.bcu.repository.jdbc.MovieRatingHistogramJdbcRepository.BUCKETS;
+
+/**
+ * 电影评分分布
+ * 每部电影在 movie_rating_histogram 中保存 1-10 分各自的评论数，计数规则与 movie.rating_count 一致：
+ * 有 1-10 分评分的评论都计入，不区分审核状态。
+ * 评论的新增、删除和修改在同一事务中用 INSERT ... ON DUPLICATE KEY UPDATE 累加各分数段的增量，
+ * 随评论一起提交或回滚；查询按主键读取一行，不扫描 comment 表
+ */
+@Slf4j
+@Service
+public class RatingHistogramService {
+    private final MovieRatingHistogramJdbcRepository histogramRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final double priorWeight;
+    private final double defaultMean;
+    private final long backfillChunkSize;
+    private final int backfillParallelism;
+
+    // 全站平均分，定时刷新
+    private volatile double globalMean;
+
+    public RatingHistogramService(MovieRatingHistogramJdbcRepository histogramRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${movie.rating-histogram.batch-size:500}") int batchSize,
+                                  @Value("${movie.rating-histogram.prior-weight:10}") double priorWeight,
+                                  @Value("${movie.rating-histogram.default-mean:6.0}") double defaultMean,
+                                  @Value("${movie.rating-histogram.backfill-chunk-size:50000}") long backfillChunkSize,
+                                  @Value("${movie.rating-histogram.backfill-parallelism:4}") int backfillParallelism) {
+        this.histogramRepository = histogramRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.priorWeight = priorWeight;
+        this.defaultMean = defaultMean;
+        this.backfillChunkSize = backfillChunkSize;
+        this.backfillParallelism = Math.max(1, backfillParallelism);
+        this.globalMean = defaultMean;
+    }
+
+    /**
+     * 新增一条评论，应在写评论的事务中调用
+     */
+    public void onCreated(Integer movieId, Integer rating) {
+        applyAll(List.of(new int[]{movieId == null ? 0 : movieId, rating == null ? 0 : rating, 1}));
+    }
+
+    /**
+     * 删除一条评论，应在删除评论的事务中调用
+     */
+    public void onDeleted(Integer movieId, Integer rating) {
+        applyAll(List.of(new int[]{movieId == null ? 0 : movieId, rating == null ? 0 : rating, -1}));
+    }
+
+    /**
+     * 评论的电影或评分发生变化，先撤销旧值再计入新值，应在修改评论的事务中调用
+     */
+    public void onChanged(Integer oldMovieId, Integer oldRating, Integer newMovieId, Integer newRating) {
+        if (counted(oldMovieId, oldRating) && counted(newMovieId, newRating)
+                && oldMovieId.equals(newMovieId) && oldRating.equals(newRating)) {
+            return;
+        }
+        applyAll(List.of(
+                new int[]{oldMovieId == null ? 0 : oldMovieId, oldRating == null ? 0 : oldRating, -1},
+                new int[]{newMovieId == null ? 0 : newMovieId, newRating == null ? 0 : newRating, 1}));
+    }
+
+    /**
+     * 批量累加评分变化，同一电影合并为一行，按电影 ID 顺序写入以免并发事务互相死锁
+     * @param changes 每项为 {movieId, rating, 增量}，不计入分布的评分被忽略
+     */
+    public void applyAll(List<int[]> changes) {
+        TreeMap<Long, int[]> deltas = new TreeMap<>();
+        for (int[] change : changes) {
+            if (counted(change[0], change[1])) {
+                deltas.computeIfAbsent((long) change[0], k -> new int[BUCKETS])[change[1] - 1] += change[2];
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((movieId, delta) -> {
+            if (!isEmpty(delta)) {
+                rows.add(toRow(movieId, delta));
+            }
+        });
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            histogramRepository.batchApplyDelta(rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    public RatingDistributionDTO getDistribution(Long movieId) {
+        int[] stored = histogramRepository.findByMovieId(movieId);
+        int[] counts = new int[BUCKETS];
+        long total = 0;
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = stored == null ? 0 : Math.max(0, stored[i]);
+            total += counts[i];
+            sum += (long) counts[i] * (i + 1);
+        }
+        Double average = total > 0 ? round((double) sum / total) : null;
+        double weighted = (priorWeight * globalMean + sum) / (priorWeight + total);
+        return new RatingDistributionDTO(movieId, counts, total, average, round(weighted));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        // 首次部署时表为空，由评论表回填一次
+        if (histogramRepository.isEmpty() && histogramRepository.findCommentIdRange()[1] > 0) {
+            backfill();
+        }
+        refreshGlobalMean();
+    }
+
+    @Scheduled(fixedDelayString = "${movie.rating-histogram.global-mean-refresh-interval-ms:600000}")
+    public void refreshGlobalMean() {
+        try {
+            long[] totals = histogramRepository.globalTotals();
+            globalMean = totals[1] > 0 ? (double) totals[0] / totals[1] : defaultMean;
+        } catch (Exception e) {
+            log.error("刷新全站平均分失败", e);
+        }
+    }
+
+    /**
+     * 由 comment 表全量重建评分分布
+     * 按评论 ID 切分区间，多个线程并行执行 GROUP BY 后在内存中合并，再在一个事务中整体替换。
+     * 统计与替换之间提交的评论变化可能被重复计算或遗漏，应在低峰期执行；计数规则调整后也需执行一次
+     * @return 重建的电影数
+     */
+    public synchronized int backfill() {
+        long start = System.currentTimeMillis();
+        long[] idRange = histogramRepository.findCommentIdRange();
+        Map<Long, int[]> histograms = scanComments(idRange[0], idRange[1]);
+
+        List<Object[]> rows = new ArrayList<>(histograms.size());
+        histograms.forEach((movieId, counts) -> rows.add(toRow(movieId, counts)));
+        transactionTemplate.executeWithoutResult(status -> histogramRepository.replaceAll(rows, batchSize));
+        log.info("评分分布回填完成：评论 ID {} - {}，{} 部电影，耗时 {} ms",
+                idRange[0], idRange[1], rows.size(), System.currentTimeMillis() - start);
+        return rows.size();
+    }
+
+    private Map<Long, int[]> scanComments(long minId, long maxId) {
+        Map<Long, int[]> histograms = new HashMap<>();
+        if (maxId <= 0) {
+            return histograms;
+        }
+        List<Callable<List<long[]>>> tasks = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += backfillChunkSize) {
+            long to = Math.min(from + backfillChunkSize - 1, maxId);
+            long rangeFrom = from;
+            tasks.add(() -> histogramRepository.countCommentRatings(rangeFrom, to));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(backfillParallelism, tasks.size()));
+        try {
+            for (Future<List<long[]>> future : executor.invokeAll(tasks)) {
+                for (long[] row : future.get()) {
+                    histograms.computeIfAbsent(row[0], k -> new int[BUCKETS])[(int) row[1] - 1] += (int) row[2];
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("评分分布回填被中断", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("评分分布回填失败", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return histograms;
+    }
+
+    // 计数规则与 movie.rating_count 一致：评分在 1-10 之间即计入，不区分审核状态
+    private static boolean counted(Integer movieId, Integer rating) {
+        return movieId != null && movieId > 0 && rating != null && rating >= 1 && rating <= BUCKETS;
+    }
+
+    private static Object[] toRow(Long movieId, int[] counts) {
+        Object[] row = new Object[BUCKETS + 1];
+        row[0] = movieId;
+        for (int i = 0; i < BUCKETS; i++) {
+            row[i + 1] = counts[i];
+        }
+        return row;
+    }
+
+    private static boolean isEmpty(int[] delta) {
+        for (int value : delta) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -1,9 +1,11 @@
 package com.edu.bcu.service;
 
+import com.edu.bcu.dto.MovieCardDTO;
 import com.edu.bcu.entity.Movie;
 import com.edu.bcu.entity.UserFavorite;
 import com.edu.bcu.repository.jpa.MovieJpaRepository;
 import com.edu.bcu.repository.jpa.UserFavoriteRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,30 +16,53 @@ import java.util.List;
 public class UserFavoriteService {
     private final UserFavoriteRepository favoriteRepository;
     private final MovieJpaRepository movieJpaRepository;
+    private final FavoriteMembershipCache membershipCache;
 
-    public UserFavoriteService(UserFavoriteRepository favoriteRepository, MovieJpaRepository movieJpaRepository) {
+    public UserFavoriteService(UserFavoriteRepository favoriteRepository, MovieJpaRepository movieJpaRepository,
+                               FavoriteMembershipCache membershipCache) {
         this.favoriteRepository = favoriteRepository;
         this.movieJpaRepository = movieJpaRepository;
+        this.membershipCache = membershipCache;
     }
 
     @Transactional
     public UserFavorite addFavorite(Long userId, Long movieId) {
-        if (exists(userId, movieId)) {
+        // 判重查库而不是查缓存：缓存可能是其他实例修改前的旧数据
+        if (favoriteRepository.existsByUserIdAndMovieId(userId, movieId)) {
             throw new RuntimeException("已收藏该电影");
         }
+        if (!movieJpaRepository.existsById(movieId)) {
+            throw new IllegalArgumentException("电影不存在");
+        }
         UserFavorite favorite = new UserFavorite();
         favorite.setUserId(userId);
         favorite.setMovieId(movieId);
-        return favoriteRepository.save(favorite);
+        UserFavorite saved;
+        try {
+            saved = favoriteRepository.saveAndFlush(favorite);
+        } catch (DataIntegrityViolationException e) {
+            // 并发收藏同一部电影，由 (user_id, movie_id) 唯一索引拦截
+            throw new RuntimeException("已收藏该电影");
+        }
+        membershipCache.onAdded(userId, movieId);
+        return saved;
     }
 
     @Transactional
     public void removeFavorite(Long userId, Long movieId) {
         favoriteRepository.deleteByUserIdAndMovieId(userId, movieId);
+        membershipCache.onRemoved(userId, movieId);
     }
 
     public boolean exists(Long userId, Long movieId) {
-        return favoriteRepository.existsByUserIdAndMovieId(userId, movieId);
+        return membershipCache.contains(userId, movieId);
+    }
+
+    /**
+     * 批量判断是否已收藏，结果与 movieIds 一一对应
+     */
+    public boolean[] existsAll(Long userId, List<Long> movieIds) {
+        return membershipCache.containsAll(userId, movieIds);
     }
 
     public List<Movie> getFavoriteMoviesByUserId(Long userId) {
@@ -48,4 +73,11 @@ public class UserFavoriteService {
         }
         return movieJpaRepository.findAllById(movieIds);
     }
-}
\ No newline at end of file
+
+    /**
+     * 收藏列表卡片，一次联表查询
+     */
+    public List<MovieCardDTO> getFavoriteMovieCardsByUserId(Long userId) {
+        return favoriteRepository.findCardsByUserId(userId);
+    }
+}
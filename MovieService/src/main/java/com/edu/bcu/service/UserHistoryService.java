@@ -1,123 +1,81 @@
 package com.edu.bcu.service;
 
-import com.edu.bcu.entity.Movie;
+import com.edu.bcu.dto.HistoryMovieDTO;
+import com.edu.bcu.dto.HistoryMovieDetailDTO;
 import com.edu.bcu.entity.UserHistory;
 import com.edu.bcu.repository.jpa.MovieJpaRepository;
 import com.edu.bcu.repository.jpa.UserHistoryRepository;
+import com.edu.bcu.repository.jpa.UserRepository;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class UserHistoryService {
     private final UserHistoryRepository historyRepository;
+    private final HistoryWriteBuffer historyWriteBuffer;
+    private final UserRepository userRepository;
     private final MovieJpaRepository movieJpaRepository;
+    private final MovieTrendingService trendingService;
 
-    public UserHistoryService(UserHistoryRepository historyRepository, MovieJpaRepository movieJpaRepository) {
+    public UserHistoryService(UserHistoryRepository historyRepository, HistoryWriteBuffer historyWriteBuffer,
+                              UserRepository userRepository, MovieJpaRepository movieJpaRepository,
+                              MovieTrendingService trendingService) {
         this.historyRepository = historyRepository;
+        this.historyWriteBuffer = historyWriteBuffer;
+        this.userRepository = userRepository;
         this.movieJpaRepository = movieJpaRepository;
+        this.trendingService = trendingService;
     }
 
-    @Transactional
+    /**
+     * 记录观看进度，心跳先在 HistoryWriteBuffer 中合并，再批量落库；每次心跳同时计入趋势榜。
+     * user_history 对用户和电影有外键，每个 (用户, 电影) 进入缓冲区时校验一次，已在缓冲区中的心跳不再查询。
+     * 返回合并后的进度，尚未落库时没有 id 和 createTime；心跳只带了部分字段时叠加已落库的记录，未知字段才不会返回 0
+     * @throws IllegalArgumentException 用户或电影不存在
+     * @throws IllegalStateException 落库持续失败、缓冲区已满
+     */
     public UserHistory addOrUpdateHistory(Long userId, Long movieId, Integer progress, Integer playTime) {
-        UserHistory history = historyRepository.findByUserIdAndMovieId(userId, movieId);
-        
-        if (history == null) {
-            history = new UserHistory();
-            history.setUserId(userId);
-            history.setMovieId(movieId);
-            history.setPlayTime(0);
-            history.setProgress(0);
+        if (userId == null || movieId == null) {
+            throw new IllegalArgumentException("用户 ID 和电影 ID 不能为空");
         }
-        
-        if (progress != null) {
-            history.setProgress(progress);
+        if (!historyWriteBuffer.isBuffered(userId, movieId)) {
+            if (userId > Integer.MAX_VALUE || !userRepository.existsById(userId.intValue())) {
+                throw new IllegalArgumentException("用户不存在");
+            }
+            if (!movieJpaRepository.existsById(movieId)) {
+                throw new IllegalArgumentException("电影不存在");
+            }
         }
-        if (playTime != null) {
-            history.setPlayTime(playTime);
+        UserHistory history = historyWriteBuffer.record(userId, movieId, progress, playTime);
+        trendingService.onHeartbeat(movieId);
+        if (progress == null || playTime == null) {
+            history = historyWriteBuffer.overlay(userId, movieId, historyRepository.findByUserIdAndMovieId(userId, movieId));
         }
-        
-        return historyRepository.save(history);
+        return history;
     }
 
-    public List<Map<String, Object>> getHistoryMovies(Long userId) {
-        List<UserHistory> histories = historyRepository.findByUserId(userId);
-        List<Long> movieIds = histories.stream()
-                .map(UserHistory::getMovieId)
-                .collect(Collectors.toList());
-        
-        List<Movie> movies = movieJpaRepository.findAllById(movieIds);
-        Map<Long, Movie> movieMap = movies.stream()
-                .collect(Collectors.toMap(Movie::getId, movie -> movie));
-        
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (UserHistory history : histories) {
-            Movie movie = movieMap.get(history.getMovieId());
-            if (movie != null) {
-                Map<String, Object> historyWithMovie = Map.of(
-                    "movie", movie,
-                    "history", Map.of(
-                        "playTime", history.getPlayTime(),
-                        "progress", history.getProgress(),
-                        "createTime", history.getCreateTime(),
-                        "updateTime", history.getUpdateTime()
-                    )
-                );
-                result.add(historyWithMovie);
-            }
-        }
-        
-        return result;
+    /**
+     * 全部观看历史，按最近观看排序，每项带完整电影（与原接口返回的字段一致）
+     */
+    public List<HistoryMovieDetailDTO> getHistoryMovies(Long userId) {
+        return historyRepository.findDetailsByUserId(userId);
     }
 
-    public Page<Map<String, Object>> getHistoryMovies(Long userId, int page, int size) {
+    /**
+     * 分页观看历史，电影只带列表展示需要的字段
+     */
+
+    public Page<HistoryMovieDTO> getHistoryMovies(Long userId, int page, int size) {
         int zeroBasedPage = Math.max(0, page - 1);
-        
-        Page<UserHistory> histories = historyRepository.findByUserId(
-                userId,
-                PageRequest.of(zeroBasedPage, size, Sort.by("updateTime").descending())
-        );
-        
-        List<Long> movieIds = histories.getContent().stream()
-                .map(UserHistory::getMovieId)
-                .collect(Collectors.toList());
-        
-        List<Movie> movies = movieJpaRepository.findAllById(movieIds);
-        Map<Long, Movie> movieMap = movies.stream()
-                .collect(Collectors.toMap(Movie::getId, movie -> movie));
-        
-        List<Map<String, Object>> content = histories.getContent().stream()
-                .map(history -> {
-                    Movie movie = movieMap.get(history.getMovieId());
-                    return Map.of(
-                        "movie", movie,
-                        "history", Map.of(
-                            "playTime", history.getPlayTime(),
-                            "progress", history.getProgress(),
-                            "createTime", history.getCreateTime(),
-                            "updateTime", history.getUpdateTime()
-                        )
-                    );
-                })
-                .collect(Collectors.toList());
-        
-        return new PageImpl<>(
-            content,
-            histories.getPageable(),
-            histories.getTotalElements()
-        );
+        return historyRepository.findFeedPageByUserId(userId, PageRequest.of(zeroBasedPage, size));
     }
 
-    public Page<Map<String, Object>> getHistoryMoviesByTimeRange(
+    public Page<HistoryMovieDTO> getHistoryMoviesByTimeRange(
             Long userId,
             LocalDateTime startTime,
             LocalDateTime endTime,
@@ -125,60 +83,32 @@ public class UserHistoryService {
             int size
     ) {
         int zeroBasedPage = Math.max(0, page - 1);
-        
-        Page<UserHistory> histories = historyRepository.findByUserIdAndCreateTimeBetween(
-                userId,
-                startTime,
-                endTime,
-                PageRequest.of(zeroBasedPage, size, Sort.by("createTime").descending())
-        );
-        
-        List<Long> movieIds = histories.getContent().stream()
-                .map(UserHistory::getMovieId)
-                .collect(Collectors.toList());
-        
-        List<Movie> movies = movieJpaRepository.findAllById(movieIds);
-        Map<Long, Movie> movieMap = movies.stream()
-                .collect(Collectors.toMap(Movie::getId, movie -> movie));
-        
-        List<Map<String, Object>> content = histories.getContent().stream()
-                .map(history -> {
-                    Movie movie = movieMap.get(history.getMovieId());
-                    return Map.of(
-                        "movie", movie,
-                        "history", Map.of(
-                            "playTime", history.getPlayTime(),
-                            "progress", history.getProgress(),
-                            "createTime", history.getCreateTime(),
-                            "updateTime", history.getUpdateTime()
-                        )
-                    );
-                })
-                .collect(Collectors.toList());
-        
-        return new PageImpl<>(
-            content,
-            histories.getPageable(),
-            histories.getTotalElements()
-        );
+        return historyRepository.findFeedPageByUserIdAndCreateTimeBetween(
+                userId, startTime, endTime, PageRequest.of(zeroBasedPage, size));
     }
 
     @Transactional
     public void deleteHistory(Long userId, Long movieId) {
+        historyWriteBuffer.discard(userId, movieId);
         historyRepository.deleteByUserIdAndMovieId(userId, movieId);
     }
 
     @Transactional
     public void deleteHistories(Long userId, List<Long> movieIds) {
+        for (Long movieId : movieIds) {
+            historyWriteBuffer.discard(userId, movieId);
+        }
         historyRepository.deleteByUserIdAndMovieIds(userId, movieIds);
     }
 
     @Transactional
     public void clearHistory(Long userId) {
+        historyWriteBuffer.discardUser(userId);
         historyRepository.deleteByUserId(userId);
     }
 
     public UserHistory getHistory(Long userId, Long movieId) {
-        return historyRepository.findByUserIdAndMovieId(userId, movieId);
+        // 先看缓冲区中尚未落库的最新进度
+        return historyWriteBuffer.overlay(userId, movieId, historyRepository.findByUserIdAndMovieId(userId, movieId));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,205 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.repository.jdbc.VipMovieViewCountJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * VIP 观看次数写缓冲区
+ * 按 (userId, movieId) 在内存中累加增量，定时批量 upsert 到 vip_movie_view_count，
+ * 请求线程不再对同一行做读-改-写。
+ * 每批在一个事务中写入；某批违反约束（如电影已被删除）时逐条重试，永久失败的行记录日志后丢弃，不影响同批其他增量
+ */
+@Slf4j
+@Component
+public class ViewCountBuffer {
+    private final VipMovieViewCountJdbcRepository jdbcRepository;
+    private final ViewCountLeaderboard leaderboard;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPendingKeys;
+    private final int batchSize;
+
+    // (userId, movieId) -> 尚未落库的增量，ConcurrentHashMap 按桶加锁，同一 key 的合并是原子的
+    private final ConcurrentHashMap<Long, Integer> pending = new ConcurrentHashMap<>();
+    // movieId -> 尚未确认落库的增量，落库成功后才扣减，用于读己之写；扣减到 0 的条目在 merge 中原子移除
+    private final ConcurrentHashMap<Integer, Long> pendingByMovie = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public ViewCountBuffer(VipMovieViewCountJdbcRepository jdbcRepository,
+                           ViewCountLeaderboard leaderboard,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${movie.view-count.max-pending-keys:10000}") int maxPendingKeys,
+                           @Value("${movie.view-count.batch-size:500}") int batchSize) {
+        this.jdbcRepository = jdbcRepository;
+        this.leaderboard = leaderboard;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPendingKeys = maxPendingKeys;
+        this.batchSize = batchSize;
+    }
+
+    public void increment(Integer userId, Integer movieId) {
+        pendingByMovie.merge(movieId, 1L, Long::sum);
+        pending.merge(key(userId, movieId), 1, Integer::sum);
+
+        // 积压过多时由当前线程顺带落库，避免内存无限增长
+        if (pending.size() >= maxPendingKeys && flushLock.tryLock()) {
+            try {
+                doFlush();
+            } catch (Exception e) {
+                log.error("观看次数落库失败", e);
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 某部电影尚未落库的观看次数
+     */
+    public long getPendingCount(Integer movieId) {
+        return pendingByMovie.getOrDefault(movieId, 0L);
+    }
+
+    /**
+     * 定时落库，间隔即最大落库延迟
+     */
+    @Scheduled(fixedDelayString = "${movie.view-count.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            doFlush();
+        } catch (Exception e) {
+            log.error("观看次数落库失败", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 在暂停落库的情况下执行操作，用于排行榜初始化时避免与落库交错导致重复计数
+     */
+    public void runWithFlushLock(Runnable action) {
+        flushLock.lock();
+        try {
+            action.run();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 应用关闭前把剩余增量全部落库
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("应用关闭，落库剩余观看次数：{} 条", pending.size());
+        flush();
+    }
+
+    private void doFlush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        for (Long key : pending.keySet()) {
+            // remove 是原子的，之后到达的增量会落到新的 entry 中，不会丢失
+            Integer delta = pending.remove(key);
+            if (delta == null || delta == 0) {
+                continue;
+            }
+            batch.add(new Object[]{userId(key), movieId(key), delta});
+            if (batch.size() >= batchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<Object[]> batch) {
+        try {
+            // 在一个事务中写入，失败时整批回滚，重试不会重复计数
+            transactionTemplate.executeWithoutResult(status -> jdbcRepository.batchIncrement(batch));
+        } catch (DataIntegrityViolationException e) {
+            writeRows(batch);
+            return;
+        } catch (RuntimeException e) {
+            // 落库失败，把增量放回缓冲区等待下次重试
+            requeue(batch);
+            throw e;
+        }
+        written(batch);
+    }
+
+    // 逐条写入以隔离违反约束的行，其余行正常落库
+    private void writeRows(List<Object[]> batch) {
+        List<Object[]> written = new ArrayList<>(batch.size());
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                Object[] row = batch.get(i);
+                try {
+                    jdbcRepository.batchIncrement(List.of(row));
+                    written.add(row);
+                } catch (DataIntegrityViolationException e) {
+                    log.warn("丢弃无法落库的观看次数，用户 ID: {}, 电影 ID: {}, 增量: {}, 错误: {}",
+                            row[0], row[1], row[2], e.getMostSpecificCause().getMessage());
+                    settle((Integer) row[1], (Integer) row[2]);
+                } catch (RuntimeException e) {
+                    // 其他错误（如连接中断）视为暂时性的，未写入的行放回缓冲区
+                    requeue(batch.subList(i, batch.size()));
+                    throw e;
+                }
+            }
+        } finally {
+            written(written);
+        }
+    }
+
+    private void requeue(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            pending.merge(key((Integer) row[0], (Integer) row[1]), (Integer) row[2], Integer::sum);
+        }
+    }
+
+    private void written(List<Object[]> rows) {
+        Map<Integer, Long> byMovie = new HashMap<>();
+        for (Object[] row : rows) {
+            settle((Integer) row[1], (Integer) row[2]);
+            byMovie.merge((Integer) row[1], ((Integer) row[2]).longValue(), Long::sum);
+        }
+        if (!byMovie.isEmpty()) {
+            leaderboard.addAll(byMovie);
+        }
+    }
+
+    // 扣减已确认的增量，归零的电影从表中移除，表的大小只与尚未落库的电影数有关
+    private void settle(Integer movieId, int delta) {
+        pendingByMovie.merge(movieId, (long) -delta, (current, change) -> current + change == 0 ? null : current + change);
+    }
+
+    private static long key(Integer userId, Integer movieId) {
+        return ((long) userId << 32) | (movieId & 0xFFFFFFFFL);
+    }
+
+    private static Integer userId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static Integer movieId(long key) {
+        return (int) key;
+    }
+}
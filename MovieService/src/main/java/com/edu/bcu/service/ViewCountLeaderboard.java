@@ -0,0 +1,144 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.util.IntLongHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 电影总观看次数排行榜
+ * 启动时和定时从 vip_movie_view_count 取前 K 名重建，之间随本实例的观看次数落库增量维护。
+ * 已知电影的总次数存在 int -> long 哈希表中，另外只保留前 K 名的有序 long 数组（观看次数 << 32 | movieId），
+ * 观看次数只增不减，所以不在前 K 名的电影只有超过第 K 名时才需要换入；删除电影后由哈希表重建前 K 名
+ */
+@Component
+public class ViewCountLeaderboard {
+    private final int capacity;
+
+    // movieId -> 总观看次数
+    private final IntLongHashMap counts = new IntLongHashMap(1024);
+    // 前 K 名，top[0 .. topSize) 升序存放、倒序读取
+    private final long[] top;
+    private int topSize;
+    private volatile boolean seeded;
+
+    public ViewCountLeaderboard(@Value("${movie.view-count.leaderboard-size:1000}") int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.top = new long[this.capacity];
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * 排行榜保留的名次数，超出的分页返回空
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 用汇总结果重建排行榜，之前累计的增量全部丢弃
+     * @param rows 每行为 {movieId, 总观看次数}
+     */
+    public synchronized void seed(List<Object[]> rows) {
+        counts.clear();
+        for (Object[] row : rows) {
+            int movieId = ((Number) row[0]).intValue();
+            long viewCount = row[1] == null ? 0 : ((Number) row[1]).longValue();
+            counts.put(movieId, viewCount);
+        }
+        rebuildTop();
+        seeded = true;
+    }
+
+    /**
+     * 累加一批已落库的观看次数
+     * @param deltas movieId -> 增量
+     */
+    public synchronized void addAll(Map<Integer, Long> deltas) {
+        if (!seeded) {
+            return;
+        }
+        for (Map.Entry<Integer, Long> entry : deltas.entrySet()) {
+            int movieId = entry.getKey();
+            int index = counts.containsKey(movieId) ? indexOf(pack(counts.get(movieId), movieId)) : -1;
+            long packed = pack(counts.addTo(movieId, entry.getValue()), movieId);
+            if (index >= 0) {
+                removeAt(index);
+            } else if (topSize == capacity) {
+                if (packed <= top[0]) {
+                    continue;
+                }
+                removeAt(0);
+            }
+            insert(packed);
+        }
+    }
+
+    /**
+     * 电影已删除，移出排行榜；原在前 K 名时由哈希表补足
+     */
+    public synchronized void remove(int movieId) {
+        if (!seeded || !counts.containsKey(movieId)) {
+            return;
+        }
+        int index = indexOf(pack(counts.remove(movieId), movieId));
+        if (index >= 0) {
+            removeAt(index);
+            if (counts.size() > topSize) {
+                rebuildTop();
+            }
+        }
+    }
+
+    /**
+     * 按观看次数降序取一页电影 ID
+     */
+    public synchronized long[] topMovieIds(int offset, int size) {
+        int end = (int) Math.min(topSize, (long) offset + size);
+        if (offset >= end) {
+            return new long[0];
+        }
+        long[] ids = new long[end - offset];
+        for (int i = offset; i < end; i++) {
+            ids[i - offset] = (int) top[topSize - 1 - i];
+        }
+        return ids;
+    }
+
+    private void rebuildTop() {
+        long[] all = new long[counts.size()];
+        int[] n = {0};
+        counts.forEach((movieId, viewCount) -> all[n[0]++] = pack(viewCount, movieId));
+        Arrays.sort(all);
+        topSize = Math.min(capacity, all.length);
+        System.arraycopy(all, all.length - topSize, top, 0, topSize);
+    }
+
+    private int indexOf(long packed) {
+        int index = Arrays.binarySearch(top, 0, topSize, packed);
+        return Math.max(index, -1);
+    }
+
+    private void insert(long packed) {
+        int index = -Arrays.binarySearch(top, 0, topSize, packed) - 1;
+        System.arraycopy(top, index, top, index + 1, topSize - index);
+        top[index] = packed;
+        topSize++;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(top, index + 1, top, index, topSize - index - 1);
+        topSize--;
+    }
+
+    private static long pack(long viewCount, int movieId) {
+        long clamped = Math.max(0, Math.min(viewCount, Integer.MAX_VALUE));
+        return (clamped << 32) | (movieId & 0xFFFFFFFFL);
+    }
+}
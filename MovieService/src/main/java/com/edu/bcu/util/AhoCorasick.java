@@ -0,0 +1,226 @@
+package com.edu.bcu.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick 多模式匹配自动机，构建后不可变，可被多个线程同时使用
+ * 转移边按状态存为压缩稀疏行：edgeOffsets[s] .. edgeOffsets[s + 1] 为状态 s 的出边，
+ * edgeChars 在每个状态内升序，查找时二分；状态按 BFS 顺序编号，0 为根。
+ * matches[s] 为在状态 s 结束的任一模式串（含沿失败链可达的），没有时为 -1，
+ * 因此匹配时每个字符只需沿失败链回退，无需遍历输出链，整个过程不分配对象。
+ * 英文字母不区分大小写
+ */
+public final class AhoCorasick {
+    private final int[] edgeOffsets;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] fail;
+    private final int[] matches;
+    private final String[] patterns;
+
+    private AhoCorasick(int[] edgeOffsets, char[] edgeChars, int[] edgeTargets, int[] fail, int[] matches,
+                        String[] patterns) {
+        this.edgeOffsets = edgeOffsets;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.matches = matches;
+        this.patterns = patterns;
+    }
+
+    /**
+     * 构建自动机，空白的模式串被忽略，重复的只保留一个
+     */
+    public static AhoCorasick build(Collection<String> words) {
+        // 先用 (父状态, 字符) -> 子状态 的哈希表建字典树，状态按插入顺序编号
+        Map<Long, Integer> children = new HashMap<>();
+        List<String> patterns = new ArrayList<>();
+        IntArray terminal = new IntArray();
+        terminal.add(-1);
+        for (String word : words) {
+            if (word == null || word.isBlank()) {
+                continue;
+            }
+            String pattern = word.trim();
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                long key = edgeKey(state, fold(pattern.charAt(i)));
+                Integer child = children.get(key);
+                if (child == null) {
+                    child = terminal.size();
+                    terminal.add(-1);
+                    children.put(key, child);
+                }
+                state = child;
+            }
+            if (terminal.get(state) < 0) {
+                terminal.set(state, patterns.size());
+                patterns.add(pattern);
+            }
+        }
+        int stateCount = terminal.size();
+
+        // 按父状态、字符排序出边，再按 BFS 重新编号，使同一状态的出边连续且字符有序
+        long[] edges = new long[children.size()];
+        int n = 0;
+        for (Long key : children.keySet()) {
+            edges[n++] = key;
+        }
+        Arrays.sort(edges);
+        int[] childOf = new int[edges.length];
+        for (int e = 0; e < edges.length; e++) {
+            childOf[e] = children.get(edges[e]);
+        }
+        int[] firstEdge = new int[stateCount + 1];
+        for (long edge : edges) {
+            firstEdge[(int) (edge >>> 16) + 1]++;
+        }
+        for (int s = 0; s < stateCount; s++) {
+            firstEdge[s + 1] += firstEdge[s];
+        }
+
+        int[] order = new int[stateCount];
+        int[] renumber = new int[stateCount];
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int old = order[head++];
+            for (int e = firstEdge[old]; e < firstEdge[old + 1]; e++) {
+                renumber[childOf[e]] = tail;
+                order[tail++] = childOf[e];
+            }
+        }
+
+        int[] edgeOffsets = new int[stateCount + 1];
+        char[] edgeChars = new char[edges.length];
+        int[] edgeTargets = new int[edges.length];
+        int[] matches = new int[stateCount];
+        int p = 0;
+        for (int s = 0; s < stateCount; s++) {
+            int old = order[s];
+            edgeOffsets[s] = p;
+            for (int e = firstEdge[old]; e < firstEdge[old + 1]; e++) {
+                edgeChars[p] = (char) edges[e];
+                edgeTargets[p++] = renumber[childOf[e]];
+            }
+            matches[s] = terminal.get(old);
+        }
+        edgeOffsets[stateCount] = p;
+
+        // BFS 顺序即编号顺序，计算失败链时父状态的失败状态已经确定
+        int[] fail = new int[stateCount];
+        AhoCorasick automaton = new AhoCorasick(edgeOffsets, edgeChars, edgeTargets, fail, matches,
+                patterns.toArray(new String[0]));
+        for (int s = 0; s < stateCount; s++) {
+            for (int e = edgeOffsets[s]; e < edgeOffsets[s + 1]; e++) {
+                int child = edgeTargets[e];
+                if (s == 0) {
+                    fail[child] = 0;
+                } else {
+                    int f = fail[s];
+                    int next;
+                    while ((next = automaton.transition(f, edgeChars[e])) < 0 && f != 0) {
+                        f = fail[f];
+                    }
+                    fail[child] = next >= 0 ? next : 0;
+                }
+                if (matches[child] < 0) {
+                    matches[child] = matches[fail[child]];
+                }
+            }
+        }
+        return automaton;
+    }
+
+    /**
+     * 文本中第一个出现（结束位置最靠前）的模式串编号，没有时返回 -1
+     */
+    public int find(CharSequence text) {
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = fold(text.charAt(i));
+            int next;
+            while ((next = transition(state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            if (matches[state] >= 0) {
+                return matches[state];
+            }
+        }
+        return -1;
+    }
+
+    public boolean matches(CharSequence text) {
+        return text != null && find(text) >= 0;
+    }
+
+    public String pattern(int index) {
+        return patterns[index];
+    }
+
+    public int patternCount() {
+        return patterns.length;
+    }
+
+    public int stateCount() {
+        return fail.length;
+    }
+
+    private int transition(int state, char c) {
+        int low = edgeOffsets[state];
+        int high = edgeOffsets[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char value = edgeChars[mid];
+            if (value < c) {
+                low = mid + 1;
+            } else if (value > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static long edgeKey(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * 构建时使用的可增长 int 数组
+     */
+    private static final class IntArray {
+        private int[] values = new int[256];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.edu.bcu.util;
+
+import java.io.IOException;
+
+/**
+ * CSV 记录格式错误（引号未闭合、字段过长），只影响出错的记录
+ */
+public class CsvFormatException extends IOException {
+    private final long line;
+
+    public CsvFormatException(long line, String message) {
+        super("第 " + line + " 行" + message);
+        this.line = line;
+    }
+
+    /**
+     * 出错记录起始的行号
+     */
+    public long getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,119 @@
+package com.edu.bcu.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 CSV 读取器（RFC 4180）
+ * 逐条读取记录，支持双引号包裹、字段内逗号/换行和 "" 转义，不缓存整个输入；
+ * 单个字段有长度上限，超长字段所在记录被跳过并抛出 CsvFormatException，之后可以继续读取下一条
+ */
+public class CsvReader {
+    private final Reader reader;
+    private final int maxFieldLength;
+    private int peeked = -2;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader reader) {
+        this(reader, Integer.MAX_VALUE);
+    }
+
+    public CsvReader(Reader reader, int maxFieldLength) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * 最近一条记录起始的行号（从 1 开始）
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * 读取下一条记录，输入结束时返回 null；空行跳过
+     * @throws CsvFormatException 引号直到输入结束仍未闭合，或字段超过长度上限（已读到该记录末尾）
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        // 超长字段不再追加，读完整条记录后再报错，下一次从下一条记录开始
+        boolean overflow = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new CsvFormatException(recordLine, "的引号未闭合");
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        overflow |= !append(field, '"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    overflow |= !append(field, (char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (overflow) {
+                    throw new CsvFormatException(recordLine, "的字段超过 " + maxFieldLength + " 个字符");
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                overflow |= !append(field, (char) c);
+            }
+            c = read();
+        }
+    }
+
+    private boolean append(StringBuilder field, char c) {
+        if (field.length() >= maxFieldLength) {
+            return false;
+        }
+        field.append(c);
+        return true;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (peeked != -2) {
+            c = peeked;
+            peeked = -2;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
@@ -0,0 +1,87 @@
+package com.edu.bcu.util;
+
+/**
+ * int -> double 开放寻址哈希表（线性探测），避免 Map<Integer, Double> 的装箱开销
+ * 非线程安全，由调用方负责同步
+ */
+public class IntDoubleHashMap extends IntHashTable {
+    private double[] values;
+
+    public IntDoubleHashMap() {
+        this(16);
+    }
+
+    public IntDoubleHashMap(int expectedSize) {
+        super(expectedSize);
+        values = new double[capacity()];
+    }
+
+    /**
+     * 不存在时返回 0
+     */
+    public double get(int key) {
+        int index = indexOf(key);
+        return used[index] ? values[index] : 0;
+    }
+
+    public void put(int key, double value) {
+        int index = insert(key);
+        values[index] = value;
+    }
+
+    /**
+     * 累加并返回累加后的值，不存在时从 0 开始
+     */
+    public double addTo(int key, double delta) {
+        int index = insert(key);
+        values[index] += delta;
+        return values[index];
+    }
+
+    /**
+     * 删除并返回原值，不存在时返回 0
+     */
+    public double remove(int key) {
+        int index = indexOf(key);
+        if (!used[index]) {
+            return 0;
+        }
+        double old = values[index];
+        removeAt(index);
+        return old;
+    }
+
+    public void forEach(Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    void rehashValues(int[] moved, int capacity) {
+        double[] old = values;
+        values = new double[capacity];
+        for (int i = 0; i < moved.length; i++) {
+            if (moved[i] >= 0) {
+                values[moved[i]] = old[i];
+            }
+        }
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int index) {
+        values[index] = 0;
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(int key, double value);
+    }
+}
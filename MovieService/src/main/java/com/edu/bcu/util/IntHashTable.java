@@ -0,0 +1,135 @@
+package com.edu.bcu.util;
+
+import java.util.Arrays;
+
+/**
+ * int 键开放寻址哈希表的公共部分：线性探测、扩容和向后移位删除
+ * 值数组由子类按各自的类型保存，槽位下标与 keys 一致；非线程安全，由调用方负责同步
+ */
+abstract class IntHashTable {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    int[] keys;
+    boolean[] used;
+    private int mask;
+    private int size;
+
+    IntHashTable(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return used[indexOf(key)];
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * 槽位数，子类据此分配值数组
+     */
+    final int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * key 所在的槽位，不存在时为探测链结束处的空槽位
+     */
+    final int indexOf(int key) {
+        int index = mix(key) & mask;
+        while (used[index] && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * key 所在的槽位，不存在时先插入（必要时扩容），新槽位的值由 clearValue 重置
+     */
+    final int insert(int key) {
+        int index = indexOf(key);
+        if (used[index]) {
+            return index;
+        }
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            grow();
+            index = indexOf(key);
+        }
+        used[index] = true;
+        keys[index] = key;
+        clearValue(index);
+        size++;
+        return index;
+    }
+
+    /**
+     * 删除槽位上的键，向后移位保持探测链连续
+     */
+    final void removeAt(int index) {
+        used[index] = false;
+        clearValue(index);
+        size--;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                moveValue(next, gap);
+                used[gap] = true;
+                used[next] = false;
+                clearValue(next);
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    /**
+     * 值数组按新槽位重新分配，moved[i] 为旧槽位 i 的新槽位，空槽位为 -1
+     */
+    abstract void rehashValues(int[] moved, int capacity);
+
+    abstract void moveValue(int from, int to);
+
+    abstract void clearValue(int index);
+
+    private void grow() {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length << 1);
+        int[] moved = new int[oldKeys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int index = indexOf(oldKeys[i]);
+                used[index] = true;
+                keys[index] = oldKeys[i];
+                moved[i] = index;
+            } else {
+                moved[i] = -1;
+            }
+        }
+        rehashValues(moved, keys.length);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,66 @@
+package com.edu.bcu.util;
+
+import java.util.Arrays;
+
+/**
+ * int -> 对象 开放寻址哈希表（线性探测），避免 Map<Integer, V> 的装箱开销
+ * 只支持插入和查询，非线程安全
+ */
+public class IntObjectHashMap<V> extends IntHashTable {
+    private Object[] values;
+
+    public IntObjectHashMap() {
+        this(16);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        super(expectedSize);
+        values = new Object[capacity()];
+    }
+
+    /**
+     * 不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[indexOf(key)];
+    }
+
+    /**
+     * value 不能为 null
+     */
+    public void put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value 不能为 null");
+        }
+        int index = insert(key);
+        values[index] = value;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(values, null);
+    }
+
+    @Override
+    void rehashValues(int[] moved, int capacity) {
+        Object[] old = values;
+        values = new Object[capacity];
+        for (int i = 0; i < moved.length; i++) {
+            if (moved[i] >= 0) {
+                values[moved[i]] = old[i];
+            }
+        }
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int index) {
+        values[index] = null;
+    }
+}
@@ -0,0 +1,305 @@
+package com.edu.bcu.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 基于共现的物品相似度（余弦）
+ * 输入为 (用户, 电影, 是否收藏) 编码成的 long 数组，先按用户、再按电影建立两份压缩稀疏行（CSR）结构，
+ * 再用 fork-join 并行地为每部电影累加与其他电影的点积，取余弦相似度最高的 K 部。
+ * 每个用户最多保留 maxItemsPerUser 部电影，计算量上限为 用户数 * maxItemsPerUser^2
+ */
+public final class ItemSimilarity {
+    // 每个任务至少处理的电影数，小于该值不再拆分
+    private static final int MIN_TASK_SIZE = 64;
+
+    private ItemSimilarity() {
+    }
+
+    /**
+     * 编码一条交互记录，排序后同一用户的记录相邻，同一用户对同一电影的收藏排在观看之后
+     */
+    public static long key(int userId, int movieId, boolean favorite) {
+        return ((long) userId << 32) | ((long) movieId << 1) | (favorite ? 1 : 0);
+    }
+
+    /**
+     * @param keys            交互记录，会被原地排序
+     * @param size            keys 中的有效长度
+     * @param favoriteWeight  收藏的权重
+     * @param historyWeight   仅观看过的权重
+     * @param maxItemsPerUser 每个用户参与计算的最多电影数，超出时按稳定的哈希抽样
+     * @param minCommonUsers  至少有这么多共同用户才计算相似度
+     * @param topK            每部电影保留的相似电影数
+     * @param parallelism     并行度
+     */
+    public static Result compute(long[] keys, int size, float favoriteWeight, float historyWeight,
+                                 int maxItemsPerUser, int minCommonUsers, int topK, int parallelism) {
+        Arrays.parallelSort(keys, 0, size);
+
+        // 出现过的电影，按 ID 排序后用下标表示
+        int[] movieIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            movieIds[i] = (int) (keys[i] & 0xFFFFFFFFL) >>> 1;
+        }
+        Arrays.parallelSort(movieIds);
+        int movieCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (movieCount == 0 || movieIds[movieCount - 1] != movieIds[i]) {
+                movieIds[movieCount++] = movieIds[i];
+            }
+        }
+        movieIds = Arrays.copyOf(movieIds, movieCount);
+
+        // 按用户的 CSR：userOffsets[u] .. userOffsets[u + 1] 为用户 u 的电影下标和权重
+        int[] userOffsets = new int[16];
+        int[] userItems = new int[Math.min(size, 1 << 20)];
+        float[] userWeights = new float[userItems.length];
+        int userCount = 0;
+        int entries = 0;
+        int[] items = new int[16];
+        float[] weights = new float[16];
+        int from = 0;
+        while (from < size) {
+            long user = keys[from] >>> 32;
+            int count = 0;
+            int to = from;
+            for (; to < size && keys[to] >>> 32 == user; to++) {
+                int movieId = (int) (keys[to] & 0xFFFFFFFFL) >>> 1;
+                // 同一电影的多条记录只保留最后一条（有收藏时为收藏）
+                if (to + 1 < size && keys[to + 1] >>> 32 == user
+                        && (int) (keys[to + 1] & 0xFFFFFFFFL) >>> 1 == movieId) {
+                    continue;
+                }
+                if (count == items.length) {
+                    items = Arrays.copyOf(items, count << 1);
+                    weights = Arrays.copyOf(weights, count << 1);
+                }
+                items[count] = Arrays.binarySearch(movieIds, movieId);
+                weights[count] = (keys[to] & 1) == 1 ? favoriteWeight : historyWeight;
+                count++;
+            }
+            from = to;
+            if (count < 2) {
+                // 只看过一部电影的用户不产生共现
+                continue;
+            }
+            if (count > maxItemsPerUser) {
+                count = sample(items, weights, count, maxItemsPerUser, (int) user);
+            }
+            if (userCount + 2 > userOffsets.length) {
+                userOffsets = Arrays.copyOf(userOffsets, userOffsets.length << 1);
+            }
+            if (entries + count > userItems.length) {
+                int capacity = Math.max(entries + count, userItems.length << 1);
+                userItems = Arrays.copyOf(userItems, capacity);
+                userWeights = Arrays.copyOf(userWeights, capacity);
+            }
+            System.arraycopy(items, 0, userItems, entries, count);
+            System.arraycopy(weights, 0, userWeights, entries, count);
+            entries += count;
+            userOffsets[++userCount] = entries;
+        }
+
+        // 按电影的 CSR：itemOffsets[i] .. itemOffsets[i + 1] 为看过电影 i 的用户下标和权重
+        int[] itemOffsets = new int[movieCount + 1];
+        for (int p = 0; p < entries; p++) {
+            itemOffsets[userItems[p] + 1]++;
+        }
+        for (int i = 0; i < movieCount; i++) {
+            itemOffsets[i + 1] += itemOffsets[i];
+        }
+        int[] itemUsers = new int[entries];
+        float[] itemWeights = new float[entries];
+        int[] fill = Arrays.copyOf(itemOffsets, movieCount);
+        double[] squares = new double[movieCount];
+        for (int u = 0; u < userCount; u++) {
+            for (int p = userOffsets[u]; p < userOffsets[u + 1]; p++) {
+                int item = userItems[p];
+                itemUsers[fill[item]] = u;
+                itemWeights[fill[item]++] = userWeights[p];
+                squares[item] += (double) userWeights[p] * userWeights[p];
+            }
+        }
+        float[] norms = new float[movieCount];
+        for (int i = 0; i < movieCount; i++) {
+            norms[i] = (float) Math.sqrt(squares[i]);
+        }
+
+        int movies = movieCount;
+        Matrix matrix = new Matrix(movieCount, userOffsets, userItems, userWeights,
+                itemOffsets, itemUsers, itemWeights, norms, minCommonUsers, topK,
+                ThreadLocal.withInitial(() -> new Scratch(movies, topK)));
+        int[][] neighbours = new int[movieCount][];
+        float[][] scores = new float[movieCount][];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.invoke(new NeighbourTask(matrix, 0, movieCount, neighbours, scores));
+        } finally {
+            pool.shutdown();
+        }
+
+        // 合并为一份 CSR，相似电影直接保存电影 ID
+        int[] offsets = new int[movieCount + 1];
+        for (int i = 0; i < movieCount; i++) {
+            offsets[i + 1] = offsets[i] + neighbours[i].length;
+        }
+        int[] neighbourIds = new int[offsets[movieCount]];
+        float[] neighbourScores = new float[offsets[movieCount]];
+        for (int i = 0; i < movieCount; i++) {
+            for (int k = 0; k < neighbours[i].length; k++) {
+                neighbourIds[offsets[i] + k] = movieIds[neighbours[i][k]];
+                neighbourScores[offsets[i] + k] = scores[i][k];
+            }
+        }
+        return new Result(movieIds, offsets, neighbourIds, neighbourScores);
+    }
+
+    // 按 (用户, 电影) 的哈希排序后保留前 limit 个，同一份数据每次抽到的电影相同
+    private static int sample(int[] items, float[] weights, int count, int limit, int user) {
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            int hash = (user * 0x9E3779B9) ^ (items[i] * 0x85EBCA6B);
+            hash ^= hash >>> 16;
+            order[i] = ((long) hash << 32) | i;
+        }
+        Arrays.sort(order);
+        int[] keptItems = new int[limit];
+        float[] keptWeights = new float[limit];
+        for (int i = 0; i < limit; i++) {
+            int index = (int) order[i];
+            keptItems[i] = items[index];
+            keptWeights[i] = weights[index];
+        }
+        System.arraycopy(keptItems, 0, items, 0, limit);
+        System.arraycopy(keptWeights, 0, weights, 0, limit);
+        return limit;
+    }
+
+    /**
+     * 计算结果：movieIds 升序，offsets[i] .. offsets[i + 1] 为 movieIds[i] 的相似电影及得分（得分降序）
+     */
+    public record Result(int[] movieIds, int[] offsets, int[] neighbours, float[] scores) {
+        /**
+         * 某部电影最相似的至多 limit 部电影
+         */
+        public long[] neighbours(long movieId, int limit) {
+            if (movieId > Integer.MAX_VALUE || movieId < 0) {
+                return new long[0];
+            }
+            int index = Arrays.binarySearch(movieIds, (int) movieId);
+            if (index < 0) {
+                return new long[0];
+            }
+            int count = Math.max(0, Math.min(limit, offsets[index + 1] - offsets[index]));
+            long[] result = new long[count];
+            for (int k = 0; k < count; k++) {
+                result[k] = neighbours[offsets[index] + k];
+            }
+            return result;
+        }
+
+        public int movieCount() {
+            return movieIds.length;
+        }
+    }
+
+    private record Matrix(int movieCount, int[] userOffsets, int[] userItems, float[] userWeights,
+                          int[] itemOffsets, int[] itemUsers, float[] itemWeights, float[] norms,
+                          int minCommonUsers, int topK, ThreadLocal<Scratch> scratch) {
+    }
+
+    /**
+     * 每个工作线程一份稠密累加数组，touched 记录本轮用到的下标以便清零
+     */
+    private static final class Scratch {
+        final float[] dot;
+        final int[] common;
+        final int[] touched;
+        final int[] best;
+        final float[] bestScores;
+
+        Scratch(int movieCount, int topK) {
+            dot = new float[movieCount];
+            common = new int[movieCount];
+            touched = new int[movieCount];
+            best = new int[topK];
+            bestScores = new float[topK];
+        }
+    }
+
+    private static final class NeighbourTask extends RecursiveAction {
+        private final Matrix m;
+        private final int from;
+        private final int to;
+        private final int[][] neighbours;
+        private final float[][] scores;
+
+        NeighbourTask(Matrix m, int from, int to, int[][] neighbours, float[][] scores) {
+            this.m = m;
+            this.from = from;
+            this.to = to;
+            this.neighbours = neighbours;
+            this.scores = scores;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MIN_TASK_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new NeighbourTask(m, from, mid, neighbours, scores),
+                        new NeighbourTask(m, mid, to, neighbours, scores));
+                return;
+            }
+            Scratch scratch = m.scratch.get();
+            float[] dot = scratch.dot;
+            int[] common = scratch.common;
+            int[] touched = scratch.touched;
+            int[] best = scratch.best;
+            float[] bestScores = scratch.bestScores;
+            for (int i = from; i < to; i++) {
+                int touchedCount = 0;
+                for (int p = m.itemOffsets[i]; p < m.itemOffsets[i + 1]; p++) {
+                    int user = m.itemUsers[p];
+                    float weight = m.itemWeights[p];
+                    for (int q = m.userOffsets[user]; q < m.userOffsets[user + 1]; q++) {
+                        int j = m.userItems[q];
+                        if (j == i) {
+                            continue;
+                        }
+                        if (common[j]++ == 0) {
+                            touched[touchedCount++] = j;
+                        }
+                        dot[j] += weight * m.userWeights[q];
+                    }
+                }
+
+                // 插入排序维护得分最高的 K 个，得分相同时下标（即电影 ID）小的在前
+                int size = 0;
+                for (int t = 0; t < touchedCount; t++) {
+                    int j = touched[t];
+                    if (common[j] >= m.minCommonUsers) {
+                        float score = dot[j] / (m.norms[i] * m.norms[j]);
+                        if (size < m.topK || score > bestScores[size - 1]
+                                || score == bestScores[size - 1] && j < best[size - 1]) {
+                            int pos = size < m.topK ? size++ : size - 1;
+                            while (pos > 0 && (bestScores[pos - 1] < score
+                                    || bestScores[pos - 1] == score && best[pos - 1] > j)) {
+                                best[pos] = best[pos - 1];
+                                bestScores[pos] = bestScores[pos - 1];
+                                pos--;
+                            }
+                            best[pos] = j;
+                            bestScores[pos] = score;
+                        }
+                    }
+                    dot[j] = 0;
+                    common[j] = 0;
+                }
+                neighbours[i] = Arrays.copyOf(best, size);
+                scores[i] = Arrays.copyOf(bestScores, size);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.edu.bcu.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搜索分词器
+ * 中日韩文字按相邻两字切分（单字成词时保留单字），字母数字按连续串切分并转小写，其余字符作为分隔符；
+ * 建索引时额外输出中日韩单字，使单字查询也能命中
+ */
+public final class SearchTokenizer {
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 切分查询文本
+     */
+    public static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * 切分待索引的文本，结果保留重复词，便于统计词频
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    private static List<String> tokenize(String text, boolean withUnigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase();
+        int length = lower.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = lower.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int start = i;
+                while (i < length && isCjk(lower.codePointAt(i))) {
+                    i += Character.charCount(lower.codePointAt(i));
+                }
+                addBigrams(lower.substring(start, i), tokens, withUnigrams);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < length) {
+                    int cp = lower.codePointAt(i);
+                    if (!Character.isLetterOrDigit(cp) || isCjk(cp)) {
+                        break;
+                    }
+                    i += Character.charCount(cp);
+                }
+                tokens.add(lower.substring(start, i));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 是否为字母数字词（而不是中日韩字词），查询时这类词按前缀匹配
+     */
+    public static boolean isWordToken(String token) {
+        return !token.isEmpty() && !isCjk(token.codePointAt(0));
+    }
+
+    private static void addBigrams(String run, List<String> tokens, boolean withUnigrams) {
+        int count = run.codePointCount(0, run.length());
+        if (count == 1) {
+            tokens.add(run);
+            return;
+        }
+        int start = 0;
+        for (int n = 0; n < count; n++) {
+            int second = run.offsetByCodePoints(start, 1);
+            if (withUnigrams) {
+                tokens.add(run.substring(start, second));
+            }
+            if (n < count - 1) {
+                tokens.add(run.substring(start, run.offsetByCodePoints(second, 1)));
+            }
+            start = second;
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,71 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.entity.Comment;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CommentCursorTest {
+
+    @Test
+    void roundTripsTimeCursor() {
+        Comment comment = comment(42, LocalDateTime.of(2024, 5, 1, 12, 30, 15), 7);
+        String encoded = CommentCursor.of(comment, "time").encode();
+
+        CommentCursor decoded = CommentCursor.decode(encoded, "time");
+        assertEquals(comment.getCreateTime(), decoded.createTime());
+        assertEquals(42, decoded.id());
+        assertNull(decoded.likeCount());
+    }
+
+    @Test
+    void roundTripsHotCursor() {
+        String encoded = CommentCursor.of(comment(42, LocalDateTime.now(), null), "hot").encode();
+
+        CommentCursor decoded = CommentCursor.decode(encoded, "hot");
+        // 点赞数为空按 0 处理
+        assertEquals(0, decoded.likeCount());
+        assertEquals(42, decoded.id());
+        assertNull(decoded.createTime());
+    }
+
+    @Test
+    void firstPageStartsFromMaximum() {
+        CommentCursor first = CommentCursor.decode(null, "hot");
+        assertEquals(Integer.MAX_VALUE, first.likeCount());
+        assertEquals(Integer.MAX_VALUE, first.id());
+        assertEquals(first, CommentCursor.decode("", "hot"));
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        String encoded = CommentCursor.of(comment(1, LocalDateTime.now(), 3), "hot").encode();
+        assertThrows(IllegalArgumentException.class, () -> CommentCursor.decode(encoded, "time"));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> CommentCursor.decode("not base64!", "time"));
+        assertThrows(IllegalArgumentException.class, () -> CommentCursor.decode(encode("time|yesterday|1"), "time"));
+        assertThrows(IllegalArgumentException.class, () -> CommentCursor.decode(encode("hot|many|1"), "hot"));
+        assertThrows(IllegalArgumentException.class, () -> CommentCursor.decode(encode("hot|1"), "hot"));
+    }
+
+    private static Comment comment(Integer id, LocalDateTime createTime, Integer likeCount) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setCreateTime(createTime);
+        comment.setLikeCount(likeCount);
+        return comment;
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
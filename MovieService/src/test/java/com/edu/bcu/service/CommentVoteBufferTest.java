@@ -0,0 +1,112 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.repository.jdbc.CommentVoteJdbcRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommentVoteBufferTest {
+
+    @Test
+    void mergesVotesIntoOneRowPerComment() {
+        FakeVoteRepository repository = new FakeVoteRepository();
+        CommentVoteBuffer buffer = new CommentVoteBuffer(repository, false, 500);
+
+        buffer.like(1);
+        buffer.like(1);
+        buffer.like(1);
+        buffer.unlike(1);
+        buffer.dislike(2);
+        assertEquals(2, buffer.getPendingLikes(1));
+        assertEquals(1, buffer.getPendingDislikes(2));
+
+        buffer.flush();
+        assertEquals(2, repository.written.size());
+        for (long[] row : repository.written) {
+            assertArrayEquals(row[0] == 1 ? new long[]{1, 2, 0} : new long[]{2, 0, 1}, row);
+        }
+        assertEquals(0, buffer.getPendingLikes(1));
+        assertEquals(0, buffer.getPendingDislikes(2));
+    }
+
+    @Test
+    void keepsPendingVotesVisibleWhileFlushing() {
+        FakeVoteRepository repository = new FakeVoteRepository();
+        CommentVoteBuffer buffer = new CommentVoteBuffer(repository, false, 500);
+        repository.onWrite = () -> assertEquals(1, buffer.getPendingLikes(7));
+
+        buffer.like(7);
+        buffer.flush();
+        assertEquals(1, repository.written.size());
+    }
+
+    @Test
+    void requeuesVotesWhenFlushFails() {
+        FakeVoteRepository repository = new FakeVoteRepository();
+        CommentVoteBuffer buffer = new CommentVoteBuffer(repository, false, 1);
+
+        buffer.like(1);
+        buffer.like(2);
+        repository.failures = 1;
+        buffer.flush();
+        // 第一批失败，两条评论的增量都放回缓冲区
+        assertTrue(repository.written.isEmpty());
+        assertEquals(1, buffer.getPendingLikes(1));
+        assertEquals(1, buffer.getPendingLikes(2));
+
+        // 重试前到达的新增量与放回的增量合并
+        buffer.like(1);
+        buffer.flush();
+        assertEquals(2, repository.written.size());
+        for (long[] row : repository.written) {
+            assertArrayEquals(row[0] == 1 ? new long[]{1, 2, 0} : new long[]{2, 1, 0}, row);
+        }
+        assertEquals(0, buffer.getPendingLikes(1));
+    }
+
+    @Test
+    void dropsIdleCellsAfterFlush() {
+        FakeVoteRepository repository = new FakeVoteRepository();
+        CommentVoteBuffer buffer = new CommentVoteBuffer(repository, false, 500);
+
+        buffer.like(1);
+        buffer.unlike(1);
+        buffer.flush();
+        // 增量相互抵消，不写入数据库
+        assertTrue(repository.written.isEmpty());
+
+        buffer.like(1);
+        buffer.flush();
+        assertEquals(1, repository.written.size());
+        assertArrayEquals(new long[]{1, 1, 0}, repository.written.get(0));
+    }
+
+    private static final class FakeVoteRepository extends CommentVoteJdbcRepository {
+        final List<long[]> written = new ArrayList<>();
+        int failures;
+        Runnable onWrite = () -> {
+        };
+
+        FakeVoteRepository() {
+            super(null);
+        }
+
+        @Override
+        public int applyVoteDeltas(List<long[]> rows) {
+            onWrite.run();
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("数据库不可用");
+            }
+            for (long[] row : rows) {
+                written.add(row.clone());
+            }
+            return rows.size();
+        }
+    }
+}
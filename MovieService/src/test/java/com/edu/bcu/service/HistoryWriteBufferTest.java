@@ -0,0 +1,152 @@
+package com.edu.bcu.service;
+
+import com.edu.bcu.entity.UserHistory;
+import com.edu.bcu.repository.jdbc.UserHistoryJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryWriteBufferTest {
+
+    @Test
+    void coalescesHeartbeatsIntoOneRow() {
+        FakeHistoryRepository repository = new FakeHistoryRepository();
+        HistoryWriteBuffer buffer = newBuffer(repository, 100, 500);
+
+        buffer.record(1L, 10L, 5, null);
+        buffer.record(1L, 10L, null, 100);
+        UserHistory merged = buffer.record(1L, 10L, 8, null);
+        assertEquals(8, merged.getProgress());
+        assertEquals(100, merged.getPlayTime());
+        assertTrue(buffer.isBuffered(1L, 10L));
+
+        buffer.flush();
+        assertEquals(1, repository.written.size());
+        Object[] row = repository.written.get(0);
+        assertEquals(1L, row[0]);
+        assertEquals(10L, row[1]);
+        assertEquals(100, row[2]);
+        assertEquals(8, row[3]);
+        assertFalse(buffer.isBuffered(1L, 10L));
+    }
+
+    @Test
+    void overlaysPendingFieldsOnPersistedRow() {
+        HistoryWriteBuffer buffer = newBuffer(new FakeHistoryRepository(), 100, 500);
+        UserHistory persisted = new UserHistory();
+        persisted.setId(3L);
+        persisted.setProgress(20);
+        persisted.setPlayTime(600);
+
+        buffer.record(1L, 10L, 30, null);
+        UserHistory history = buffer.overlay(1L, 10L, persisted);
+        assertEquals(3L, history.getId());
+        assertEquals(30, history.getProgress());
+        // 缓冲区中没有的字段沿用数据库中的值
+        assertEquals(600, history.getPlayTime());
+
+        assertNull(buffer.overlay(2L, 10L, null));
+    }
+
+    @Test
+    void requeuesOnFailureAndKeepsNewerHeartbeats() {
+        FakeHistoryRepository repository = new FakeHistoryRepository();
+        HistoryWriteBuffer buffer = newBuffer(repository, 100, 500);
+
+        buffer.record(1L, 10L, 5, 50);
+        repository.failures = 1;
+        buffer.flush();
+        assertTrue(repository.written.isEmpty());
+        assertTrue(buffer.isBuffered(1L, 10L));
+
+        // 重试前到达的心跳覆盖放回的旧值，旧值中的其他字段保留
+        buffer.record(1L, 10L, 9, null);
+        buffer.flush();
+        assertEquals(1, repository.written.size());
+        assertEquals(50, repository.written.get(0)[2]);
+        assertEquals(9, repository.written.get(0)[3]);
+    }
+
+    @Test
+    void dropsRowsThatViolateConstraints() {
+        FakeHistoryRepository repository = new FakeHistoryRepository();
+        repository.rejectedMovieId = 99L;
+        HistoryWriteBuffer buffer = newBuffer(repository, 100, 500);
+
+        buffer.record(1L, 10L, 5, 50);
+        buffer.record(1L, 99L, 5, 50);
+        buffer.record(2L, 10L, 5, 50);
+        buffer.flush();
+        // 整批失败后逐条重试，只丢弃违反约束的一条
+        assertEquals(2, repository.written.size());
+        for (Object[] row : repository.written) {
+            assertEquals(10L, row[1]);
+        }
+        assertFalse(buffer.isBuffered(1L, 99L));
+    }
+
+    @Test
+    void rejectsNewEntriesWhenFlushKeepsFailing() {
+        FakeHistoryRepository repository = new FakeHistoryRepository();
+        repository.failures = Integer.MAX_VALUE;
+        HistoryWriteBuffer buffer = newBuffer(repository, 1, 500);
+
+        buffer.record(1L, 1L, 1, 1);
+        buffer.record(1L, 2L, 1, 1);
+        assertThrows(IllegalStateException.class, () -> buffer.record(1L, 3L, 1, 1));
+        // 已在缓冲区中的记录仍可更新
+        assertEquals(2, buffer.record(1L, 1L, 2, null).getProgress());
+    }
+
+    @Test
+    void discardRemovesPendingHeartbeats() {
+        FakeHistoryRepository repository = new FakeHistoryRepository();
+        HistoryWriteBuffer buffer = newBuffer(repository, 100, 500);
+
+        buffer.record(1L, 10L, 5, 50);
+        buffer.record(1L, 11L, 5, 50);
+        buffer.record(2L, 10L, 5, 50);
+        buffer.discard(1L, 10L);
+        buffer.discardUser(2L);
+        buffer.flush();
+        assertEquals(1, repository.written.size());
+        assertEquals(11L, repository.written.get(0)[1]);
+    }
+
+    private static HistoryWriteBuffer newBuffer(FakeHistoryRepository repository, int maxDirtyEntries, int batchSize) {
+        return new HistoryWriteBuffer(repository, new SimpleMeterRegistry(), maxDirtyEntries, batchSize, true);
+    }
+
+    private static final class FakeHistoryRepository extends UserHistoryJdbcRepository {
+        final List<Object[]> written = new ArrayList<>();
+        int failures;
+        Long rejectedMovieId;
+
+        FakeHistoryRepository() {
+            super(null);
+        }
+
+        @Override
+        public void batchUpsert(List<Object[]> rows) {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("数据库不可用");
+            }
+            for (Object[] row : rows) {
+                if (row[1].equals(rejectedMovieId)) {
+                    throw new DataIntegrityViolationException("外键约束失败");
+                }
+            }
+            written.addAll(rows);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.edu.bcu.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class MovieTrendingServiceTest {
+    // 半衰期足够长，测试期间的衰减可以忽略
+    private static final long HALF_LIFE_MS = 365L * 24 * 3600 * 1000;
+
+    @Test
+    void ranksViewsAndHeartbeatsByWeight() {
+        MovieTrendingService service = new MovieTrendingService(HALF_LIFE_MS, 1.0, 0.1, 100, 0.01, 10);
+        repeat(3, () -> service.onView(1));
+        service.onView(2);
+        repeat(5, () -> service.onHeartbeat(3L));
+        service.tick();
+
+        MovieTrendingService.Snapshot snapshot = service.getSnapshot();
+        assertArrayEquals(new long[]{1, 2, 3}, snapshot.movieIds());
+        assertEquals(3.0, snapshot.scores()[0], 1e-3);
+        assertEquals(0.5, snapshot.scores()[2], 1e-3);
+    }
+
+    @Test
+    void keepsVersionWhileRankingIsUnchanged() {
+        MovieTrendingService service = new MovieTrendingService(HALF_LIFE_MS, 1.0, 0.1, 100, 0.01, 10);
+        service.onView(5);
+        service.onView(4);
+        service.tick();
+        MovieTrendingService.Snapshot first = service.getSnapshot();
+        // 分数相同时 ID 小的在前
+        assertArrayEquals(new long[]{4, 5}, first.movieIds());
+
+        service.onView(4);
+        service.tick();
+        assertEquals(first.version(), service.getSnapshot().version());
+        assertEquals(first.eTag(), service.getSnapshot().eTag());
+
+        repeat(2, () -> service.onView(5));
+        service.tick();
+        assertArrayEquals(new long[]{5, 4}, service.getSnapshot().movieIds());
+        assertNotEquals(first.eTag(), service.getSnapshot().eTag());
+    }
+
+    @Test
+    void capsEntriesAndMakesRoomAfterTick() {
+        // 上限 4 条，定时淘汰后保留 3 条
+        MovieTrendingService service = new MovieTrendingService(HALF_LIFE_MS, 1.0, 0.1, 4, 0.01, 10);
+        for (int movieId = 1; movieId <= 4; movieId++) {
+            int id = movieId;
+            repeat(5 - movieId, () -> service.onView(id));
+        }
+        // 达到上限后新电影的事件被丢弃
+        repeat(10, () -> service.onView(9));
+        service.tick();
+        // 淘汰热度最低的电影 4
+        assertArrayEquals(new long[]{1, 2, 3}, service.getSnapshot().movieIds());
+
+        repeat(10, () -> service.onView(9));
+        service.tick();
+        assertArrayEquals(new long[]{9, 1, 2}, service.getSnapshot().movieIds());
+    }
+
+    @Test
+    void dropsScoresBelowMinimumAndInvalidIds() {
+        MovieTrendingService service = new MovieTrendingService(HALF_LIFE_MS, 1.0, 0.001, 100, 0.01, 10);
+        service.onHeartbeat(1L);
+        service.onHeartbeat(-1L);
+        service.onHeartbeat(1L << 40);
+        service.onHeartbeat(null);
+        service.onView(null);
+        service.tick();
+        assertArrayEquals(new long[0], service.getSnapshot().movieIds());
+    }
+
+    private static void repeat(int times, Runnable action) {
+        for (int i = 0; i < times; i++) {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.edu.bcu.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ViewCountLeaderboardTest {
+
+    @Test
+    void ignoresIncrementsBeforeSeed() {
+        ViewCountLeaderboard leaderboard = new ViewCountLeaderboard(3);
+        leaderboard.addAll(Map.of(1, 10L));
+        assertFalse(leaderboard.isSeeded());
+
+        leaderboard.seed(List.of());
+        assertTrue(leaderboard.isSeeded());
+        assertArrayEquals(new long[0], leaderboard.topMovieIds(0, 10));
+    }
+
+    @Test
+    void keepsTopKOrderedAsCountsGrow() {
+        ViewCountLeaderboard leaderboard = new ViewCountLeaderboard(3);
+        leaderboard.seed(List.of(row(1, 50), row(2, 40), row(3, 30), row(4, 20)));
+        assertArrayEquals(new long[]{1, 2, 3}, leaderboard.topMovieIds(0, 10));
+
+        // 不在前 K 名的电影超过第 K 名后换入
+        leaderboard.addAll(Map.of(4, 15L));
+        assertArrayEquals(new long[]{1, 2, 4}, leaderboard.topMovieIds(0, 10));
+
+        // 前 K 名内部的名次变化
+        leaderboard.addAll(Map.of(2, 20L));
+        assertArrayEquals(new long[]{2, 1, 4}, leaderboard.topMovieIds(0, 10));
+        assertArrayEquals(new long[]{1, 4}, leaderboard.topMovieIds(1, 2));
+        assertArrayEquals(new long[0], leaderboard.topMovieIds(3, 2));
+    }
+
+    @Test
+    void refillsFromCountsAfterRemoval() {
+        ViewCountLeaderboard leaderboard = new ViewCountLeaderboard(2);
+        leaderboard.seed(List.of(row(1, 50), row(2, 40), row(3, 30)));
+        leaderboard.addAll(Map.of(3, 5L));
+
+        leaderboard.remove(1);
+        // 第 3 名由哈希表补入，包括种子之后累计的增量
+        assertArrayEquals(new long[]{2, 3}, leaderboard.topMovieIds(0, 10));
+        leaderboard.addAll(Map.of(3, 10L));
+        assertArrayEquals(new long[]{3, 2}, leaderboard.topMovieIds(0, 10));
+    }
+
+    @Test
+    void reseedDiscardsAccumulatedIncrements() {
+        ViewCountLeaderboard leaderboard = new ViewCountLeaderboard(2);
+        leaderboard.seed(List.of(row(1, 10), row(2, 5)));
+        leaderboard.addAll(Map.of(2, 100L));
+        assertArrayEquals(new long[]{2, 1}, leaderboard.topMovieIds(0, 10));
+
+        leaderboard.seed(List.of(row(1, 10), row(2, 5), row(3, null)));
+        assertArrayEquals(new long[]{1, 2}, leaderboard.topMovieIds(0, 10));
+    }
+
+    private static Object[] row(int movieId, Integer viewCount) {
+        return new Object[]{movieId, viewCount};
+    }
+}
@@ -0,0 +1,99 @@
+package com.edu.bcu.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AhoCorasickTest {
+
+    @Test
+    void findsPatternsAnywhereInText() {
+        AhoCorasick automaton = AhoCorasick.build(List.of("广告", "加微信", "spam"));
+        assertTrue(automaton.matches("这部电影不错，加微信领资源"));
+        assertTrue(automaton.matches("纯广告"));
+        assertFalse(automaton.matches("这部电影不错"));
+        assertFalse(automaton.matches("加微"));
+        assertFalse(automaton.matches(null));
+    }
+
+    @Test
+    void ignoresLetterCase() {
+        AhoCorasick automaton = AhoCorasick.build(List.of("SpAm"));
+        assertTrue(automaton.matches("no SPAM here"));
+        assertEquals("SpAm", automaton.pattern(automaton.find("spam")));
+    }
+
+    @Test
+    void followsFailureLinksToSuffixPatterns() {
+        AhoCorasick automaton = AhoCorasick.build(List.of("he", "she", "his", "hers"));
+        // "ushers" 中 "she" 最先结束，"he" 在同一位置结束，经失败链也可达
+        assertEquals("she", automaton.pattern(automaton.find("ushers")));
+        assertEquals("his", automaton.pattern(automaton.find("ahis")));
+        // 匹配 "abcd" 失败后回退到 "bc"
+        AhoCorasick suffix = AhoCorasick.build(List.of("abcd", "bc"));
+        assertEquals("bc", suffix.pattern(suffix.find("abce")));
+    }
+
+    @Test
+    void reportsPatternThatEndsFirst() {
+        AhoCorasick automaton = AhoCorasick.build(List.of("cdef", "bcd"));
+        assertEquals("bcd", automaton.pattern(automaton.find("abcdef")));
+    }
+
+    @Test
+    void skipsBlankAndDuplicatePatterns() {
+        List<String> words = new ArrayList<>(Arrays.asList(" 刷单 ", "刷单", "", "  ", null));
+        AhoCorasick automaton = AhoCorasick.build(words);
+        assertEquals(1, automaton.patternCount());
+        assertEquals("刷单", automaton.pattern(0));
+        assertEquals(3, automaton.stateCount());
+
+        AhoCorasick empty = AhoCorasick.build(List.of());
+        assertEquals(-1, empty.find("任何内容"));
+    }
+
+    @Test
+    void agreesWithNaiveSearch() {
+        Random random = new Random(25);
+        String alphabet = "abcAB好坏";
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            words.add(randomText(random, alphabet, 1 + random.nextInt(4)));
+        }
+        AhoCorasick automaton = AhoCorasick.build(words);
+        for (int i = 0; i < 2000; i++) {
+            String text = randomText(random, alphabet, random.nextInt(20));
+            String lower = text.toLowerCase();
+            int expectedEnd = Integer.MAX_VALUE;
+            for (String word : words) {
+                int start = lower.indexOf(word.toLowerCase());
+                if (start >= 0) {
+                    expectedEnd = Math.min(expectedEnd, start + word.length());
+                }
+            }
+            int found = automaton.find(text);
+            if (expectedEnd == Integer.MAX_VALUE) {
+                assertEquals(-1, found);
+            } else {
+                // 找到的模式串在最早的结束位置结束
+                String pattern = automaton.pattern(found).toLowerCase();
+                assertTrue(lower.startsWith(pattern, expectedEnd - pattern.length()), text);
+            }
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.edu.bcu.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainRecordsAndSkipsBlankLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("title,year\r\n\r\n盗梦空间,2010\n,\n"));
+        assertEquals(List.of("title", "year"), reader.readRecord());
+        assertEquals(List.of("盗梦空间", "2010"), reader.readRecord());
+        assertEquals(3, reader.getRecordLine());
+        // 只有逗号的行是两个空字段
+        assertEquals(List.of("", ""), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void readsQuotedFieldsWithCommasNewlinesAndEscapedQuotes() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\"a,b\",\"第一行\r\n第二行\",\"say \"\"hi\"\"\"\nnext,1"));
+        assertEquals(List.of("a,b", "第一行\r\n第二行", "say \"hi\""), reader.readRecord());
+        assertEquals(1, reader.getRecordLine());
+        assertEquals(List.of("next", "1"), reader.readRecord());
+        // 字段内的换行也计入行号
+        assertEquals(3, reader.getRecordLine());
+    }
+
+    @Test
+    void keepsQuotesInsideUnquotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("5\"1,x"));
+        assertEquals(List.of("5\"1", "x"), reader.readRecord());
+    }
+
+    @Test
+    void reportsUnclosedQuoteWithRecordLine() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("ok,1\n\"broken,2\nmore"));
+        assertEquals(List.of("ok", "1"), reader.readRecord());
+        CsvFormatException e = assertThrows(CsvFormatException.class, reader::readRecord);
+        assertEquals(2, e.getLine());
+    }
+
+    @Test
+    void skipsOverlongRecordAndContinuesWithNext() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("abc,de\nabcdef,\"x\ny\"\nabc,d\n"), 4);
+        assertEquals(List.of("abc", "de"), reader.readRecord());
+        CsvFormatException e = assertThrows(CsvFormatException.class, reader::readRecord);
+        assertEquals(2, e.getLine());
+        // 超长记录已读到末尾（包括引号内的换行），下一次从下一条记录开始
+        assertEquals(List.of("abc", "d"), reader.readRecord());
+        assertEquals(4, reader.getRecordLine());
+        assertNull(reader.readRecord());
+    }
+}
@@ -0,0 +1,56 @@
+package com.edu.bcu.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class IntDoubleHashMapTest {
+
+    @Test
+    void addToAccumulatesFromZero() {
+        IntDoubleHashMap map = new IntDoubleHashMap();
+        assertEquals(0.0, map.get(3));
+        assertEquals(0.5, map.addTo(3, 0.5));
+        assertEquals(1.75, map.addTo(3, 1.25));
+        map.put(3, 2.0);
+        assertEquals(2.0, map.get(3));
+    }
+
+    @Test
+    void removedSlotsDoNotLeakOldValues() {
+        IntDoubleHashMap map = new IntDoubleHashMap(4);
+        for (int key = 0; key < 32; key++) {
+            map.put(key, key + 0.5);
+        }
+        assertEquals(4.5, map.remove(4));
+        assertFalse(map.containsKey(4));
+        // 重新插入的键从 0 开始累加
+        assertEquals(1.0, map.addTo(4, 1.0));
+        assertEquals(31.5, map.get(31));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        IntDoubleHashMap map = new IntDoubleHashMap(2);
+        Map<Integer, Double> expected = new HashMap<>();
+        Random random = new Random(21);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                Double old = expected.remove(key);
+                assertEquals(old == null ? 0.0 : old, map.remove(key));
+            } else {
+                assertEquals(expected.merge(key, 0.25, Double::sum).doubleValue(), map.addTo(key, 0.25));
+            }
+        }
+        Map<Integer, Double> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), map.size());
+    }
+}
@@ -0,0 +1,81 @@
+package com.edu.bcu.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntLongHashMapTest {
+
+    @Test
+    void putGetAndAddTo() {
+        IntLongHashMap map = new IntLongHashMap();
+        assertEquals(0L, map.get(7));
+        assertFalse(map.containsKey(7));
+
+        map.put(7, 10L);
+        assertEquals(15L, map.addTo(7, 5L));
+        assertEquals(3L, map.addTo(-1, 3L));
+        assertEquals(15L, map.get(7));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void removeReturnsOldValueAndKeepsOtherKeysReachable() {
+        IntLongHashMap map = new IntLongHashMap(4);
+        // 同一探测链上的键，删除中间的键后后面的键仍能找到
+        for (int key = 0; key < 64; key++) {
+            map.put(key, key * 10L);
+        }
+        assertEquals(100L, map.remove(10));
+        assertEquals(0L, map.remove(10));
+        assertFalse(map.containsKey(10));
+        for (int key = 0; key < 64; key++) {
+            if (key != 10) {
+                assertEquals(key * 10L, map.get(key));
+            }
+        }
+        assertEquals(63, map.size());
+    }
+
+    @Test
+    void clearResetsValues() {
+        IntLongHashMap map = new IntLongHashMap();
+        map.put(1, 5L);
+        map.clear();
+        assertTrue(map.isEmpty());
+        // 清空后重新插入的键从 0 开始累加
+        assertEquals(2L, map.addTo(1, 2L));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        IntLongHashMap map = new IntLongHashMap(2);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(500) - 250;
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    long value = random.nextLong();
+                    map.put(key, value);
+                    expected.put(key, value);
+                }
+                case 1 -> assertEquals(expected.merge(key, 1L, Long::sum).longValue(), map.addTo(key, 1L));
+                default -> {
+                    Long old = expected.remove(key);
+                    assertEquals(old == null ? 0L : old, map.remove(key));
+                }
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Integer, Long> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,55 @@
+package com.edu.bcu.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntObjectHashMapTest {
+
+    @Test
+    void putReplacesAndGetReturnsNullForMissingKeys() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertNull(map.get(1));
+
+        map.put(1, "a");
+        map.put(1, "b");
+        map.put(Integer.MIN_VALUE, "min");
+        assertEquals("b", map.get(1));
+        assertEquals("min", map.get(Integer.MIN_VALUE));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void keepsValuesAcrossGrowth() {
+        // 评论 ID 间隔较大，按父评论分组的场景
+        IntObjectHashMap<List<Integer>> map = new IntObjectHashMap<>(2);
+        for (int id = 0; id < 10000; id += 7) {
+            map.put(id, List.of(id, id + 1));
+        }
+        for (int id = 0; id < 10000; id += 7) {
+            assertEquals(List.of(id, id + 1), map.get(id));
+            assertNull(map.get(id + 1));
+        }
+    }
+
+    @Test
+    void rejectsNullValues() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void clearDropsValues() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        map.put(3, "c");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(3));
+    }
+}
@@ -0,0 +1,98 @@
+package com.edu.bcu.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemSimilarityTest {
+
+    @Test
+    void ranksNeighboursByCosineSimilarity() {
+        // 用户 1 看过 1、2，用户 2 看过 1、2、3，用户 3 看过 2、3
+        long[] keys = {
+                ItemSimilarity.key(1, 1, false), ItemSimilarity.key(1, 2, false),
+                ItemSimilarity.key(2, 1, false), ItemSimilarity.key(2, 2, false), ItemSimilarity.key(2, 3, false),
+                ItemSimilarity.key(3, 2, false), ItemSimilarity.key(3, 3, false),
+        };
+        ItemSimilarity.Result result = compute(keys, 100, 1, 2);
+
+        assertEquals(3, result.movieCount());
+        assertArrayEquals(new long[]{2, 3}, result.neighbours(1, 10));
+        // 1 和 3 与 2 的相似度相同，ID 小的在前
+        assertArrayEquals(new long[]{1, 3}, result.neighbours(2, 10));
+        assertArrayEquals(new long[]{2, 1}, result.neighbours(3, 10));
+        assertArrayEquals(new long[]{2}, result.neighbours(3, 1));
+    }
+
+    @Test
+    void requiresMinimumCommonUsers() {
+        long[] keys = {
+                ItemSimilarity.key(1, 1, false), ItemSimilarity.key(1, 2, false),
+                ItemSimilarity.key(2, 1, false), ItemSimilarity.key(2, 2, false), ItemSimilarity.key(2, 3, false),
+                ItemSimilarity.key(3, 2, false), ItemSimilarity.key(3, 3, false),
+        };
+        ItemSimilarity.Result result = compute(keys, 100, 2, 2);
+
+        // 1 和 3 只有一个共同用户
+        assertArrayEquals(new long[]{2}, result.neighbours(1, 10));
+        assertArrayEquals(new long[]{2}, result.neighbours(3, 10));
+    }
+
+    @Test
+    void favouritesOutweighViewsOfTheSameMovie() {
+        // 用户 2 既看过又收藏了电影 1，只按收藏计一次
+        long[] keys = {
+                ItemSimilarity.key(1, 1, false), ItemSimilarity.key(1, 2, false),
+                ItemSimilarity.key(2, 1, false), ItemSimilarity.key(2, 1, true), ItemSimilarity.key(2, 3, false),
+        };
+        ItemSimilarity.Result result = compute(keys, 100, 1, 2);
+
+        assertArrayEquals(new long[]{3, 2}, result.neighbours(1, 10));
+    }
+
+    @Test
+    void returnsNothingForUnknownOrIsolatedMovies() {
+        long[] keys = {
+                ItemSimilarity.key(1, 1, false), ItemSimilarity.key(1, 2, false),
+                // 只看过一部电影的用户不产生共现
+                ItemSimilarity.key(2, 5, true),
+        };
+        ItemSimilarity.Result result = compute(keys, 100, 1, 2);
+
+        assertArrayEquals(new long[0], result.neighbours(5, 10));
+        assertArrayEquals(new long[0], result.neighbours(99, 10));
+        assertArrayEquals(new long[0], result.neighbours(-1, 10));
+        assertArrayEquals(new long[0], result.neighbours((long) Integer.MAX_VALUE + 1, 10));
+        assertArrayEquals(new long[0], result.neighbours(1, -1));
+    }
+
+    @Test
+    void resultDoesNotDependOnInputOrderOrParallelism() {
+        Random random = new Random(7);
+        long[] keys = new long[5000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ItemSimilarity.key(random.nextInt(300), random.nextInt(400), random.nextInt(4) == 0);
+        }
+        long[] shuffled = keys.clone();
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = tmp;
+        }
+
+        // 每个用户只抽样 5 部电影，抽样结果与输入顺序无关
+        ItemSimilarity.Result serial = ItemSimilarity.compute(keys, keys.length, 2, 1, 5, 1, 10, 1);
+        ItemSimilarity.Result parallel = ItemSimilarity.compute(shuffled, shuffled.length, 2, 1, 5, 1, 10, 4);
+        assertArrayEquals(serial.movieIds(), parallel.movieIds());
+        assertArrayEquals(serial.offsets(), parallel.offsets());
+        assertArrayEquals(serial.neighbours(), parallel.neighbours());
+    }
+
+    private static ItemSimilarity.Result compute(long[] keys, int maxItemsPerUser, int minCommonUsers, int topK) {
+        return ItemSimilarity.compute(keys, keys.length, 2, 1, maxItemsPerUser, minCommonUsers, topK, 2);
+    }
+}
@@ -0,0 +1,57 @@
+package com.edu.bcu.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchTokenizerTest {
+
+    @Test
+    void splitsCjkIntoBigrams() {
+        assertEquals(List.of("流浪", "浪地", "地球"), SearchTokenizer.tokenize("流浪地球"));
+        // 单字成词时保留单字
+        assertEquals(List.of("爱"), SearchTokenizer.tokenize("爱"));
+    }
+
+    @Test
+    void indexingAlsoEmitsUnigrams() {
+        assertEquals(List.of("流", "流浪", "浪", "浪地", "地", "地球", "球"),
+                SearchTokenizer.tokenizeForIndex("流浪地球"));
+    }
+
+    @Test
+    void lowercasesWordsAndSplitsOnPunctuation() {
+        assertEquals(List.of("star", "wars", "4"), SearchTokenizer.tokenize("Star-Wars: 4"));
+        assertEquals(List.of(), SearchTokenizer.tokenize(" ,.!"));
+        assertEquals(List.of(), SearchTokenizer.tokenize(null));
+    }
+
+    @Test
+    void separatesCjkFromAdjacentLetters() {
+        assertEquals(List.of("复仇", "仇者", "2", "终局", "局之", "之战"), SearchTokenizer.tokenize("复仇者2终局之战"));
+        assertEquals(List.of("iron", "钢铁", "铁侠"), SearchTokenizer.tokenize("Iron钢铁侠"));
+    }
+
+    @Test
+    void keepsRepeatedTokensForTermFrequency() {
+        assertEquals(List.of("la", "la", "land"), SearchTokenizer.tokenizeForIndex("La La Land"));
+    }
+
+    @Test
+    void handlesSupplementaryCharacters() {
+        // 扩展 B 区汉字占两个 char
+        assertEquals(List.of("𠀀中"), SearchTokenizer.tokenize("𠀀中"));
+    }
+
+    @Test
+    void classifiesWordTokens() {
+        assertTrue(SearchTokenizer.isWordToken("matrix"));
+        assertTrue(SearchTokenizer.isWordToken("2049"));
+        assertFalse(SearchTokenizer.isWordToken("地球"));
+        assertFalse(SearchTokenizer.isWordToken(""));
+    }
+}
@@ -77,6 +77,10 @@ CREATE TABLE `comment`  (
   INDEX `idx_comment_user_id`(`user_id` ASC) USING BTREE,
   INDEX `idx_comment_movie_id`(`movie_id` ASC) USING BTREE,
   INDEX `idx_comment_create_time`(`create_time` ASC) USING BTREE,
+  INDEX `idx_comment_movie_time`(`movie_id` ASC, `create_time` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_comment_movie_like`(`movie_id` ASC, `like_count` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_comment_status_time`(`status` ASC, `create_time` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_comment_parent_time`(`parent_id` ASC, `create_time` ASC, `id` ASC) USING BTREE,
   CONSTRAINT `comment_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT,
   CONSTRAINT `comment_ibfk_2` FOREIGN KEY (`movie_id`) REFERENCES `movie` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 18 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '评论表' ROW_FORMAT = Dynamic;
@@ -156,6 +160,7 @@ CREATE TABLE `movie`  (
   `imdb_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
   `rating` double NULL DEFAULT NULL,
   `rating_count` int NULL DEFAULT 0 COMMENT '评分人数',
+  `rating_sum` bigint NULL DEFAULT NULL COMMENT '评分总和',
   `description` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
   `poster_url` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '海报URL',
   `trailer_url` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '预告片URL',
@@ -174,6 +179,38 @@ CREATE TABLE `movie`  (
   FULLTEXT INDEX `title`(`title`, `description`) COMMENT '全文索引'
 ) ENGINE = InnoDB AUTO_INCREMENT = 5 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '电影表' ROW_FORMAT = Dynamic;
 
+-- ----------------------------
+-- Table structure for movie_change_log
+-- ----------------------------
+DROP TABLE IF EXISTS `movie_change_log`;
+CREATE TABLE `movie_change_log`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `movie_id` bigint NOT NULL COMMENT '电影ID',
+  `change_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '变更时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_movie_change_time`(`change_time` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '电影变更通知表（用于多实例缓存失效）' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for movie_rating_histogram
+-- ----------------------------
+DROP TABLE IF EXISTS `movie_rating_histogram`;
+CREATE TABLE `movie_rating_histogram`  (
+  `movie_id` bigint NOT NULL COMMENT '电影ID',
+  `star_1` int NOT NULL DEFAULT 0 COMMENT '评1分的评论数',
+  `star_2` int NOT NULL DEFAULT 0 COMMENT '评2分的评论数',
+  `star_3` int NOT NULL DEFAULT 0 COMMENT '评3分的评论数',
+  `star_4` int NOT NULL DEFAULT 0 COMMENT '评4分的评论数',
+  `star_5` int NOT NULL DEFAULT 0 COMMENT '评5分的评论数',
+  `star_6` int NOT NULL DEFAULT 0 COMMENT '评6分的评论数',
+  `star_7` int NOT NULL DEFAULT 0 COMMENT '评7分的评论数',
+  `star_8` int NOT NULL DEFAULT 0 COMMENT '评8分的评论数',
+  `star_9` int NOT NULL DEFAULT 0 COMMENT '评9分的评论数',
+  `star_10` int NOT NULL DEFAULT 0 COMMENT '评10分的评论数',
+  `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`movie_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '电影评分分布表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for movie_category
 -- ----------------------------